@@ -0,0 +1,202 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.mapper.MpaRowMapper;
+import ru.yandex.practicum.filmorate.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+public class BenchmarkDatabase {
+    private static final int BATCH_SIZE = 10_000;
+    private static final int GENRES = 6;
+    private static final int MPA_RATINGS = 5;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final Random random;
+    private final ReferenceDataCache referenceData;
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final FriendshipRepository friendshipRepository;
+
+    public BenchmarkDatabase(long seed) {
+        this(seed, 0);
+    }
+
+    public BenchmarkDatabase(long seed, int poolSize) {
+        String url = "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        if (poolSize > 0) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl(url);
+            pool.setUsername("sa");
+            pool.setMaximumPoolSize(poolSize);
+            pool.setMinimumIdle(poolSize);
+            dataSource = pool;
+        } else {
+            dataSource = new SimpleDriverDataSource(new org.h2.Driver(), url, "sa", "");
+        }
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        random = new Random(seed);
+        referenceData = new ReferenceDataCache(new GenreRepository(jdbc, new GenreRowMapper()),
+                new MpaRepository(jdbc, new MpaRowMapper()), new ObjectMapper().findAndRegisterModules());
+        referenceData.refresh();
+        filmRepository = new FilmRepository(jdbc, new FilmRowMapper(referenceData), referenceData, 1000);
+        userRepository = new UserRepository(jdbc, new UserRowMapper());
+        friendshipRepository = new FriendshipRepository(jdbc, new UserRowMapper());
+    }
+
+    public void seed(int users, int films, int likesPerUser, double likesSkew, int friendsPerUser) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= users; i++) {
+            rows.add(new Object[]{"user" + i + "@example.com", "user" + i, "User " + i,
+                    Date.valueOf(LocalDate.of(1970 + i % 40, 1 + i % 12, 1 + i % 28))});
+            flush("INSERT INTO USERS (EMAIL, LOGIN, USERNAME, BIRTHDAY) VALUES (?, ?, ?, ?)", rows);
+        }
+        flushAll("INSERT INTO USERS (EMAIL, LOGIN, USERNAME, BIRTHDAY) VALUES (?, ?, ?, ?)", rows);
+        for (int i = 1; i <= films; i++) {
+            rows.add(new Object[]{"Film " + i, "Description of film " + i,
+                    Date.valueOf(LocalDate.of(1950 + i % 75, 1 + i % 12, 1 + i % 28)), 60 + i % 120,
+                    1 + i % MPA_RATINGS});
+            flush("INSERT INTO FILMS (FILM_NAME, DESCRIPTION, RELEASE_DATE, DURATION, MPA_ID) " +
+                    "VALUES (?, ?, ?, ?, ?)", rows);
+        }
+        flushAll("INSERT INTO FILMS (FILM_NAME, DESCRIPTION, RELEASE_DATE, DURATION, MPA_ID) " +
+                "VALUES (?, ?, ?, ?, ?)", rows);
+        for (int i = 1; i <= films; i++) {
+            rows.add(new Object[]{i, 1 + i % GENRES});
+            flush("INSERT INTO FILMS_GENRES (FILM_ID, GENRE_ID) VALUES (?, ?)", rows);
+        }
+        flushAll("INSERT INTO FILMS_GENRES (FILM_ID, GENRE_ID) VALUES (?, ?)", rows);
+        Zipf popularity = new Zipf(films, likesSkew);
+        for (int userId = 1; userId <= users; userId++) {
+            for (int filmId : distinct(popularity, Math.min(likesPerUser, films))) {
+                rows.add(new Object[]{filmId, userId});
+                flush("INSERT INTO FILMS_LIKES (FILM_ID, USER_ID) VALUES (?, ?)", rows);
+            }
+        }
+        flushAll("INSERT INTO FILMS_LIKES (FILM_ID, USER_ID) VALUES (?, ?)", rows);
+        Zipf sociability = new Zipf(users, 0.8);
+        for (int userId = 1; userId <= users; userId++) {
+            for (int friendId : distinct(sociability, Math.min(friendsPerUser, users - 1))) {
+                if (friendId != userId) {
+                    rows.add(new Object[]{userId, friendId});
+                    flush("INSERT INTO FRIENDS (USER_ID, FRIEND_ID) VALUES (?, ?)", rows);
+                }
+            }
+        }
+        flushAll("INSERT INTO FRIENDS (USER_ID, FRIEND_ID) VALUES (?, ?)", rows);
+        statsReconciler().reconcile();
+    }
+
+    public void close() {
+        jdbc.execute("SHUTDOWN");
+        if (dataSource instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbc;
+    }
+
+    public Random random() {
+        return random;
+    }
+
+    public FilmRepository filmRepository() {
+        return filmRepository;
+    }
+
+    public UserRepository userRepository() {
+        return userRepository;
+    }
+
+    public FriendshipRepository friendshipRepository() {
+        return friendshipRepository;
+    }
+
+    public LikesRepository likesRepository(int shards) {
+        return new LikesRepository(jdbc, new FilmRowMapper(referenceData), shards);
+    }
+
+    public ChangeTracker changeTracker() {
+        return new ChangeTracker(jdbc, new DataSourceTransactionManager(dataSource));
+    }
+
+    public StatsReconciler statsReconciler() {
+        return new StatsReconciler(jdbc, new DataSourceTransactionManager(dataSource));
+    }
+
+    public TransactionTemplate transactions() {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    private int[] distinct(Zipf distribution, int count) {
+        int[] values = new int[count];
+        int size = 0;
+        while (size < count) {
+            int value = distribution.sample(random);
+            boolean seen = false;
+            for (int i = 0; i < size && !seen; i++) {
+                seen = values[i] == value;
+            }
+            if (!seen) {
+                values[size++] = value;
+            }
+        }
+        return values;
+    }
+
+    private void flush(String query, List<Object[]> rows) {
+        if (rows.size() >= BATCH_SIZE) {
+            flushAll(query, rows);
+        }
+    }
+
+    private void flushAll(String query, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbc.batchUpdate(query, rows);
+            rows.clear();
+        }
+    }
+
+    static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 1; rank <= size; rank++) {
+                sum += 1 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int position = Arrays.binarySearch(cumulative, random.nextDouble());
+            return (position >= 0 ? position : -position - 1) + 1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.storage.LikesRepository;
+import ru.yandex.practicum.filmorate.storage.StatsReconciler;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ContendedLikeBenchmark {
+    private static final int HOT_FILM = 1;
+    private static final int MAX_WRITERS = 16;
+
+    @Param({"1", "16"})
+    private int shards;
+
+    @Param({"1000"})
+    private int foldIntervalMillis;
+
+    private final AtomicInteger writers = new AtomicInteger();
+    private BenchmarkDatabase database;
+    private LikesRepository likesRepository;
+    private TransactionTemplate transactions;
+    private ScheduledExecutorService folder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(42, MAX_WRITERS + 1);
+        database.seed(MAX_WRITERS, 1, 0, 1.0, 0);
+        likesRepository = database.likesRepository(shards);
+        transactions = database.transactions();
+        StatsReconciler reconciler = database.statsReconciler();
+        folder = Executors.newSingleThreadScheduledExecutor();
+        folder.scheduleWithFixedDelay(reconciler::fold,
+                foldIntervalMillis, foldIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        folder.shutdownNow();
+        database.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private int userId;
+        private boolean liked;
+
+        @Setup(Level.Trial)
+        public void setUp(ContendedLikeBenchmark benchmark) {
+            userId = benchmark.writers.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Boolean oneWriter(Writer writer) {
+        return toggleLike(writer);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Boolean fourWriters(Writer writer) {
+        return toggleLike(writer);
+    }
+
+    @Benchmark
+    @Threads(MAX_WRITERS)
+    public Boolean sixteenWriters(Writer writer) {
+        return toggleLike(writer);
+    }
+
+    private Boolean toggleLike(Writer writer) {
+        writer.liked = !writer.liked;
+        return transactions.execute(status -> writer.liked
+                ? likesRepository.addLike(HOT_FILM, writer.userId)
+                : likesRepository.deleteLike(HOT_FILM, writer.userId));
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FriendGraph;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class InMemoryIndexBenchmark {
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"5000"})
+    private int films;
+
+    @Param({"20"})
+    private int likesPerUser;
+
+    @Param({"1.1"})
+    private double likesSkew;
+
+    @Param({"50"})
+    private int friendsPerUser;
+
+    private BenchmarkDatabase database;
+    private FilmLeaderboard leaderboard;
+    private FriendGraph friendGraph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(42);
+        database.seed(users, films, likesPerUser, likesSkew, friendsPerUser);
+        ChangeTracker tracker = database.changeTracker();
+        leaderboard = new FilmLeaderboard(database.jdbc(), tracker);
+        leaderboard.rebuild();
+        friendGraph = new FriendGraph(database.jdbc(), tracker, 1024);
+        friendGraph.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Integer> getTopFilms() {
+        return leaderboard.getTop(10);
+    }
+
+    @Benchmark
+    public List<Integer> getTopFilmsOfGenre() {
+        return leaderboard.getTop(null, 10, 1 + database.random().nextInt(6), null, null);
+    }
+
+    @Benchmark
+    public List<Integer> getTopFilmsOfGenreMpaAndYear() {
+        return leaderboard.getTop(null, 10, 1 + database.random().nextInt(6), 1 + database.random().nextInt(5),
+                1950 + database.random().nextInt(75));
+    }
+
+    @Benchmark
+    public int[] getCommonFriends() {
+        return friendGraph.getCommonFriends(1 + database.random().nextInt(users),
+                1 + database.random().nextInt(users));
+    }
+}
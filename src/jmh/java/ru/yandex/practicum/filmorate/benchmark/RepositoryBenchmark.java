@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmRepository;
+import ru.yandex.practicum.filmorate.storage.FriendshipRepository;
+import ru.yandex.practicum.filmorate.storage.UserRepository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RepositoryBenchmark {
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"5000"})
+    private int films;
+
+    @Param({"20"})
+    private int likesPerUser;
+
+    @Param({"1.1"})
+    private double likesSkew;
+
+    @Param({"50"})
+    private int friendsPerUser;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private BenchmarkDatabase database;
+    private FilmRepository filmRepository;
+    private UserRepository userRepository;
+    private FriendshipRepository friendshipRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(42);
+        database.seed(users, films, likesPerUser, likesSkew, friendsPerUser);
+        filmRepository = database.filmRepository();
+        userRepository = database.userRepository();
+        friendshipRepository = database.friendshipRepository();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Film> getFilmsPage() {
+        return filmRepository.getFilms(database.random().nextInt(films), 100);
+    }
+
+    @Benchmark
+    public Film getFilmById() {
+        return filmRepository.getFilmById(1 + database.random().nextInt(films));
+    }
+
+    @Benchmark
+    public Collection<User> getCommonFriends() {
+        return friendshipRepository.getCommonFriends(1 + database.random().nextInt(users),
+                1 + database.random().nextInt(users));
+    }
+
+    @Benchmark
+    public User insertUser() {
+        long id = sequence.incrementAndGet();
+        return userRepository.createUser(User.builder()
+                .email("bench" + id + "@example.com")
+                .login("bench" + id)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.service.ParallelLookups;
+import ru.yandex.practicum.filmorate.storage.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class VirtualThreadBenchmark {
+    private static final int REQUESTS = 2000;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    private String executor;
+
+    @Param({"32"})
+    private int poolSize;
+
+    @Param({"500"})
+    private int latencyMicros;
+
+    @Param({"10000"})
+    private int users;
+
+    private BenchmarkDatabase database;
+    private UserRepository userRepository;
+    private ExecutorService requests;
+    private ParallelLookups lookups;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(42, poolSize);
+        database.seed(users, 10, 0, 1.0, 0);
+        userRepository = database.userRepository();
+        boolean virtual = "virtual".equals(executor);
+        requests = virtual
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        lookups = new ParallelLookups(virtual);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lookups.shutdown();
+        requests.close();
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int getCommonFriendsChecks() throws InterruptedException, ExecutionException {
+        List<Future<?>> pending = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            pending.add(requests.submit(() -> lookups.runAll(this::lookupUser, this::lookupUser)));
+        }
+        for (Future<?> future : pending) {
+            future.get();
+        }
+        return pending.size();
+    }
+
+    private void lookupUser() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        userRepository.getUserById(1 + ThreadLocalRandom.current().nextInt(users));
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.model.IngestReport;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.IngestionService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/admin")
+@Slf4j
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final ReferenceDataCache referenceData;
+    private final EntityVersions versions;
+    private final IngestionService ingestionService;
+    private final UserService userService;
+    private final FilmService filmService;
+
+    @PostMapping("/reference-data/refresh")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void refreshReferenceData() {
+        log.info("Refreshing genres and MPA ratings");
+        referenceData.refresh();
+        versions.referenceDataChanged();
+    }
+
+    @PostMapping("/suggestions/precompute")
+    @ResponseStatus(HttpStatus.OK)
+    public int precomputeSuggestions() {
+        log.info("Precomputing friend suggestions");
+        return userService.precomputeSuggestions();
+    }
+
+    @PostMapping("/recommendations/precompute")
+    @ResponseStatus(HttpStatus.OK)
+    public int precomputeRecommendations() {
+        log.info("Precomputing film recommendations");
+        return filmService.precomputeRecommendations();
+    }
+
+    @PostMapping("/similar/rebuild")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void rebuildSimilarity() {
+        log.info("Rebuilding like index and co-like counts");
+        filmService.rebuildSimilarity();
+    }
+
+    @PostMapping("/ingest/likes")
+    @ResponseStatus(HttpStatus.OK)
+    public IngestReport ingestLikes(InputStream body,
+                                    @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType)
+            throws IOException {
+        log.info("Ingesting likes ({})", contentType);
+        return ingestionService.ingestLikes(body, isNdjson(contentType));
+    }
+
+    @PostMapping("/ingest/friends")
+    @ResponseStatus(HttpStatus.OK)
+    public IngestReport ingestFriends(InputStream body,
+                                      @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType)
+            throws IOException {
+        log.info("Ingesting friendships ({})", contentType);
+        return ingestionService.ingestFriends(body, isNdjson(contentType));
+    }
+
+    private static boolean isNdjson(String contentType) {
+        return contentType != null
+                && MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.storage.ReplicaRoutingDataSource;
+
+import java.util.function.Supplier;
+
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    static <T> T load(WebRequest request, String tag, Supplier<T> loader) {
+        if (!ReplicaRoutingDataSource.mayReadFromReplica()) {
+            return request.checkNotModified(tag) ? null : loader.get();
+        }
+        ReplicaRoutingDataSource.clearReplicaRead();
+        T body = loader.get();
+        if (!ReplicaRoutingDataSource.isReplicaRead() && request.checkNotModified(tag)) {
+            return null;
+        }
+        return body;
+    }
+}
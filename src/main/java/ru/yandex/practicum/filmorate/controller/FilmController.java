@@ -4,11 +4,20 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmBatchResult;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.service.ExportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
 
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping("/films")
@@ -17,23 +26,76 @@ import java.util.Collection;
 public class FilmController {
 
     private final FilmService filmService;
+    private final ExportService exportService;
+    private final EntityVersions versions;
+    private final ResponseBodyCache responseCache;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getFilms() {
-        return filmService.getFilms();
+    public ResponseEntity<byte[]> getFilms(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "${filmorate.page.default-size}") int limit,
+            WebRequest request) {
+        return responseCache.respond(request, "films?after=" + after + "&limit=" + limit, versions.filmsTag(),
+                () -> filmService.getFilms(after, limit));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(exportService::exportFilms);
     }
 
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public Film getFilmById(@PathVariable int id) {
-        return filmService.getFilmById(id);
+    public Film getFilmById(@PathVariable int id, WebRequest request) {
+        return ConditionalResponses.load(request, versions.filmTag(id), () -> filmService.getFilmById(id));
     }
 
     @GetMapping("/popular")
+    public ResponseEntity<byte[]> getTopFilms(@RequestParam(required = false) Integer after,
+                                              @RequestParam(defaultValue = "10") int count,
+                                              @RequestParam(required = false) Integer genreId,
+                                              @RequestParam(required = false) Integer mpaId,
+                                              @RequestParam(required = false) Integer year,
+                                              WebRequest request) {
+        return responseCache.respond(request, "films/popular?after=" + after + "&count=" + count +
+                        "&genreId=" + genreId + "&mpaId=" + mpaId + "&year=" + year,
+                versions.filmsTag(), () -> filmService.getTopFilms(after, count, genreId, mpaId, year));
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<Collection<Film>> filterFilms(
+            @RequestParam(defaultValue = "") List<Integer> genres,
+            @RequestParam(defaultValue = "all") String genreMatch,
+            @RequestParam(defaultValue = "") List<Integer> mpa,
+            @RequestParam(required = false) Integer maxMpa,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "10") int count) {
+        FilmFilter filter = FilmFilter.of(genres, genreMatch, mpa, maxMpa, yearFrom, yearTo);
+        return PageResponses.of(filmService.filterFilms(filter, after, count));
+    }
+
+    @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public Collection<Film> getTopFilms(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getTopFilms(count);
+    public Collection<Film> searchFilms(@RequestParam String q,
+                                        @RequestParam(defaultValue = "10") int count) {
+        return filmService.searchFilms(q, count);
+    }
+
+    @GetMapping("/trending")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                             @RequestParam(defaultValue = "10") int count) {
+        return filmService.getTrendingFilms(window, count);
+    }
+
+    @GetMapping("/{id}/similar")
+    @ResponseStatus(HttpStatus.OK)
+    public Collection<Film> getSimilarFilms(@PathVariable int id,
+                                            @RequestParam(defaultValue = "10") int count) {
+        return filmService.getSimilarFilms(id, count);
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -55,6 +117,13 @@ public class FilmController {
         return filmService.addFilm(film);
     }
 
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public FilmBatchResult addFilms(@RequestBody List<Film> films) {
+        log.info("Пакетное добавление фильмов: {}", films.size());
+        return filmService.addFilms(films);
+    }
+
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
     public Film updateFilm(@Valid @RequestBody Film updatedFilm) {
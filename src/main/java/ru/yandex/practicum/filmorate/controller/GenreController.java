@@ -1,24 +1,32 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
-
-import java.util.Collection;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/genres")
 public class GenreController {
     private final GenreService genreService;
+    private final EntityVersions versions;
 
     @GetMapping
-    public Collection<Genre> getGenres() {
-        return genreService.getAllGenres();
+    public ResponseEntity<byte[]> getGenres(WebRequest request) {
+        if (request.checkNotModified(versions.referenceDataTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(genreService.getAllGenresJson());
     }
 
     @GetMapping("/{id}")
@@ -1,24 +1,32 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
-
-import java.util.Collection;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/mpa")
 public class MpaController {
     private final MpaService mpaService;
+    private final EntityVersions versions;
 
     @GetMapping
-    public Collection<Mpa> getAllMpa() {
-        return mpaService.getAllMpa();
+    public ResponseEntity<byte[]> getAllMpa(WebRequest request) {
+        if (request.checkNotModified(versions.referenceDataTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(mpaService.getAllMpaJson());
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.storage.ReplicaRoutingDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class ResponseBodyCache {
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final int minGzipBytes;
+    private final Map<String, Entry> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter serializationBytesSaved;
+    private final Counter compressionBytesSaved;
+
+    public ResponseBodyCache(ObjectMapper objectMapper,
+                             MeterRegistry registry,
+                             @Value("${filmorate.response-cache.enabled:true}") boolean enabled,
+                             @Value("${filmorate.response-cache.size:1000}") int cacheSize,
+                             @Value("${filmorate.response-cache.max-body-bytes:1048576}") int maxBodyBytes,
+                             @Value("${filmorate.response-cache.min-gzip-bytes:1024}") int minGzipBytes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyBytes;
+        this.minGzipBytes = minGzipBytes;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        this.hits = requests(registry, "hit");
+        this.misses = requests(registry, "miss");
+        this.serializationBytesSaved = bytesSaved(registry, "serialization");
+        this.compressionBytesSaved = bytesSaved(registry, "compression");
+        registry.gaugeMapSize("filmorate.response.cache.size", Tags.empty(), cache);
+    }
+
+    public ResponseEntity<byte[]> respond(WebRequest request, String key, String tag, Supplier<Page<?>> loader) {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = gzip ? variant(tag) : tag;
+        boolean replicaAllowed = ReplicaRoutingDataSource.mayReadFromReplica();
+        Entry entry = enabled ? cache.get(key) : null;
+        boolean hit = entry != null && entry.tag().equals(tag);
+        if ((hit || !replicaAllowed) && request.checkNotModified(etag)) {
+            return null;
+        }
+        if (hit) {
+            hits.increment();
+            serializationBytesSaved.increment(entry.json().length);
+        } else {
+            misses.increment();
+            ReplicaRoutingDataSource.clearReplicaRead();
+            Page<?> page = loader.get();
+            boolean replicaRead = ReplicaRoutingDataSource.isReplicaRead();
+            if (replicaAllowed && !replicaRead && request.checkNotModified(etag)) {
+                return null;
+            }
+            entry = serialize(tag, page);
+            if (enabled && !replicaRead && entry.json().length <= maxBodyBytes) {
+                cache.put(key, entry);
+            }
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (entry.nextCursor() != null) {
+            response.header(PageResponses.NEXT_CURSOR_HEADER, entry.nextCursor().toString());
+        }
+        if (gzip && entry.gzipped() != null) {
+            compressionBytesSaved.increment(entry.json().length - entry.gzipped().length);
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(entry.gzipped());
+        }
+        return response.body(entry.json());
+    }
+
+    private Entry serialize(String tag, Page<?> page) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(page.items());
+            return new Entry(tag, json, json.length < minGzipBytes ? null : gzip(json), page.nextCursor());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response could not be serialized", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase(GZIP)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (parameter.matches("q=0(\\.0{0,3})?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String variant(String tag) {
+        return tag.substring(0, tag.length() - 1) + "-" + GZIP + "\"";
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("filmorate.response.cache.requests")
+                .description("Serialized response cache lookups")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static Counter bytesSaved(MeterRegistry registry, String reason) {
+        return Counter.builder("filmorate.response.cache.bytes.saved")
+                .description("Bytes not serialized again or not sent uncompressed thanks to the response cache")
+                .baseUnit("bytes")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private record Entry(String tag, byte[] json, byte[] gzipped, Integer nextCursor) {
+    }
+}
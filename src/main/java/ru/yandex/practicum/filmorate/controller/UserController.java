@@ -4,9 +4,17 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ExportService;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
 
 import java.util.Collection;
 
@@ -17,11 +25,22 @@ import java.util.Collection;
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final ExportService exportService;
+    private final EntityVersions versions;
 
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public Collection<User> getUsers() {
-        return userService.getUsers();
+    public ResponseEntity<Collection<User>> getUsers(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "${filmorate.page.default-size}") int limit) {
+        return PageResponses.of(userService.getUsers(after, limit));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(exportService::exportUsers);
     }
 
     @PostMapping
@@ -38,10 +57,9 @@ public class UserController {
         return userService.updateUser(updatedUser);
     }
 
-    @ResponseStatus(HttpStatus.OK)
     @GetMapping("/{id}")
-    public User getUser(@PathVariable int id) {
-        return userService.getUserById(id);
+    public User getUser(@PathVariable int id, WebRequest request) {
+        return ConditionalResponses.load(request, versions.userTag(id), () -> userService.getUserById(id));
     }
 
     @ResponseStatus(HttpStatus.OK)
@@ -51,10 +69,14 @@ public class UserController {
         userService.addFriend(id, friendId);
     }
 
-    @ResponseStatus(HttpStatus.OK)
     @GetMapping("/{id}/friends")
-    public Collection<User> getFriends(@PathVariable int id) {
-        return userService.getFriends(id);
+    public ResponseEntity<Collection<User>> getFriends(
+            @PathVariable int id,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "${filmorate.page.default-size}") int limit,
+            WebRequest request) {
+        return ConditionalResponses.load(request, versions.friendsTag(id),
+                () -> PageResponses.of(userService.getFriends(id, after, limit)));
     }
 
     @ResponseStatus(HttpStatus.OK)
@@ -64,6 +86,20 @@ public class UserController {
         return userService.getCommonFriends(id, friendId);
     }
 
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/{id}/suggestions")
+    public Collection<User> getSuggestions(@PathVariable int id,
+                                           @RequestParam(defaultValue = "10") int count) {
+        return userService.getSuggestions(id, count);
+    }
+
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/{id}/recommendations")
+    public Collection<Film> getRecommendations(@PathVariable int id,
+                                               @RequestParam(defaultValue = "10") int count) {
+        return filmService.getRecommendations(id, count);
+    }
+
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping("/{id}/friends/{friendId}")
     public void deleteFriend(@PathVariable int id, @PathVariable int friendId) {
@@ -17,6 +17,7 @@ public class UserRowMapper implements RowMapper<User> {
         user.setName(rs.getString("USERNAME"));
         user.setLogin(rs.getString("LOGIN"));
         user.setBirthday(rs.getDate("BIRTHDAY").toLocalDate());
+        user.setFriendsCount(rs.getInt("FRIENDS_COUNT"));
         return user;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Past;
 import jakarta.validation.constraints.Positive;
@@ -29,4 +30,6 @@ public class Film {
     private int duration;
     private Set<Genre> genres = new HashSet<>();
     private Mpa mpa;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int likesCount;
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+public record FilmBatchResult(List<Film> created, List<ItemError> errors) {
+
+    public record ItemError(int index, String error) {
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import jakarta.validation.ValidationException;
+
+import java.util.List;
+
+public record FilmFilter(List<Integer> genres, boolean allGenres, List<Integer> mpa, Integer maxMpa,
+                         Integer yearFrom, Integer yearTo) {
+
+    public static FilmFilter of(List<Integer> genres, String genreMatch, List<Integer> mpa, Integer maxMpa,
+                                Integer yearFrom, Integer yearTo) {
+        if (!"all".equals(genreMatch) && !"any".equals(genreMatch)) {
+            throw new ValidationException("genreMatch must be 'all' or 'any'");
+        }
+        if (yearFrom != null && yearTo != null && yearFrom > yearTo) {
+            throw new ValidationException("yearFrom must not be after yearTo");
+        }
+        return new FilmFilter(genres, "all".equals(genreMatch), mpa, maxMpa, yearFrom, yearTo);
+    }
+}
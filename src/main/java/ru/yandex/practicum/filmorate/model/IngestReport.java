@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.model;
+
+public record IngestReport(long read, long inserted, long duplicates, long invalid, long malformed,
+                           long elapsedMillis, long edgesPerSecond) {
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import jakarta.validation.ValidationException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+public record Page<T>(Collection<T> items, Integer nextCursor) {
+
+    public static int size(int requested, int max) {
+        if (requested <= 0) {
+            throw new ValidationException("Page size must be positive");
+        }
+        return Math.min(requested, max);
+    }
+
+    public static <T> Page<T> of(Collection<T> items, int limit, Function<T, Integer> cursor) {
+        if (items.isEmpty() || items.size() < limit) {
+            return new Page<>(items, null);
+        }
+        T last = items instanceof List<T> list ? list.getLast() : items.stream().reduce((a, b) -> b).orElseThrow();
+        return new Page<>(items, cursor.apply(last));
+    }
+}
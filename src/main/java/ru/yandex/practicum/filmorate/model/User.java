@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -24,6 +25,8 @@ public class User {
     @PastOrPresent
     @NotNull
     private LocalDate birthday;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private int friendsCount;
 
     public String getName() {
         if (name == null || name.isBlank()) {
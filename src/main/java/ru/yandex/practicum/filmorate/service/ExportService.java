@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@Slf4j
+@Service
+public class ExportService {
+    private static final int LINE_SEPARATOR = '\n';
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final ObjectWriter writer;
+    private final int fetchSize;
+
+    public ExportService(@Autowired @Qualifier("filmRepository") FilmStorage filmStorage,
+                         @Autowired @Qualifier("userRepository") UserStorage userStorage,
+                         @Autowired ObjectMapper objectMapper,
+                         @Value("${filmorate.export.fetch-size}") int fetchSize) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+    }
+
+    @Transactional(readOnly = true)
+    public void exportFilms(OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        int[] written = new int[1];
+        try {
+            filmStorage.streamFilms(fetchSize, film -> {
+                writeLine(out, film);
+                written[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        log.info("Exported {} films in {} ms", written[0], System.currentTimeMillis() - started);
+    }
+
+    @Transactional(readOnly = true)
+    public void exportUsers(OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        int[] written = new int[1];
+        try {
+            userStorage.streamUsers(fetchSize, user -> {
+                writeLine(out, user);
+                written[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        log.info("Exported {} users in {} ms", written[0], System.currentTimeMillis() - started);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            writer.writeValue(out, value);
+            out.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
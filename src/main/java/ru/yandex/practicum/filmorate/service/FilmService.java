@@ -1,85 +1,375 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmBatchResult;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.FilmFilterIndex;
+import ru.yandex.practicum.filmorate.storage.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmRecommendations;
+import ru.yandex.practicum.filmorate.storage.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.FilmSimilarity;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.GenreRepository;
+import ru.yandex.practicum.filmorate.storage.LikeChange;
 import ru.yandex.practicum.filmorate.storage.LikesRepository;
+import ru.yandex.practicum.filmorate.storage.LikesWriteBuffer;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
 
-import java.util.Collection;
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class FilmService {
+    private static final Pattern TRENDING_WINDOW = Pattern.compile("(\\d{1,5})([mhd])");
 
     private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
     private final GenreRepository genreRepository;
     private final LikesRepository likesRepository;
+    private final LikesWriteBuffer likesBuffer;
+    private final FilmLeaderboard leaderboard;
+    private final FilmRecommendations recommendations;
+    private final FilmSimilarity similarity;
+    private final ReferenceDataCache referenceData;
+    private final Validator validator;
+    private final EntityVersions versions;
+    private final FilmSearchIndex searchIndex;
+    private final FilmFilterIndex filterIndex;
+    private final TrendingFilms trending;
+    private final ChangeTracker tracker;
+    private final int maxPageSize;
 
     public FilmService(@Autowired @Qualifier("filmRepository") FilmStorage filmStorage,
+                       @Autowired @Qualifier("userRepository") UserStorage userStorage,
                        @Autowired GenreRepository genreRepository,
-                       @Autowired LikesRepository likesRepository) {
+                       @Autowired LikesRepository likesRepository,
+                       @Autowired LikesWriteBuffer likesBuffer,
+                       @Autowired FilmLeaderboard leaderboard,
+                       @Autowired FilmRecommendations recommendations,
+                       @Autowired FilmSimilarity similarity,
+                       @Autowired ReferenceDataCache referenceData,
+                       @Autowired Validator validator,
+                       @Autowired EntityVersions versions,
+                       @Autowired FilmSearchIndex searchIndex,
+                       @Autowired FilmFilterIndex filterIndex,
+                       @Autowired TrendingFilms trending,
+                       @Autowired ChangeTracker tracker,
+                       @Value("${filmorate.page.max-size}") int maxPageSize) {
         this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
         this.genreRepository = genreRepository;
         this.likesRepository = likesRepository;
+        this.likesBuffer = likesBuffer;
+        this.leaderboard = leaderboard;
+        this.recommendations = recommendations;
+        this.similarity = similarity;
+        this.referenceData = referenceData;
+        this.validator = validator;
+        this.versions = versions;
+        this.searchIndex = searchIndex;
+        this.filterIndex = filterIndex;
+        this.trending = trending;
+        this.tracker = tracker;
+        this.maxPageSize = maxPageSize;
+        likesBuffer.onFlush(changes -> changes.forEach(this::applyLikeChange));
     }
 
     public void addLike(int filmId, int userId) {
-        filmStorage.getFilmById(filmId);
-        likesRepository.addLike(filmId, userId);
+        if (likesBuffer.isEnabled()) {
+            likesRepository.requireFilmAndUser(filmId, userId);
+            likesBuffer.addLike(filmId, userId);
+        } else {
+            tracker.run(() -> {
+                if (likesRepository.addLike(filmId, userId)) {
+                    applyLikeChange(new LikeChange(filmId, userId, true));
+                }
+            });
+        }
         log.info("User {} liked film {}", userId, filmId);
     }
 
     public void deleteLike(int filmId, int userId) {
-        filmStorage.getFilmById(filmId);
-        likesRepository.deleteLike(filmId, userId);
+        if (likesBuffer.isEnabled()) {
+            if (filmStorage.findExistingIds(List.of(filmId)).isEmpty()) {
+                throw new NotFoundException("A movie with this id was not found");
+            }
+            likesBuffer.removeLike(filmId, userId);
+        } else if (!tracker.write(() -> deleteLikeNow(filmId, userId))) {
+            filmStorage.getFilmById(filmId);
+        }
         log.info("The user {} canceled the movie's like {}", userId, filmId);
     }
 
+    public List<LikeChange> addLikes(List<LikeChange> likes) {
+        return tracker.write(() -> {
+            List<LikeChange> applied = likesRepository.applyChanges(likes);
+            applied.forEach(this::applyLikeChange);
+            return applied;
+        });
+    }
+
+    @Transactional(readOnly = true)
     public Film getFilmById(Integer id) {
         return filmStorage.getFilmById(id);
     }
 
-    public Collection<Film> getTopFilms(Integer count) {
-        return filmStorage.getTopFilms(count);
+    @Transactional(readOnly = true)
+    public Page<Film> getTopFilms(Integer after, int count, Integer genreId, Integer mpaId, Integer year) {
+        int limit = Page.size(count, maxPageSize);
+        List<Integer> filmIds = leaderboard.getTop(after, limit, genreId, mpaId, year);
+        Integer nextCursor = filmIds.size() < limit ? null : filmIds.getLast();
+        return new Page<>(filmStorage.getFilmsByIds(filmIds), nextCursor);
     }
 
-    public Collection<Film> getFilms() {
-        return filmStorage.getFilms();
+    @Transactional(readOnly = true)
+    public Collection<Film> getRecommendations(int userId, int count) {
+        userStorage.getUserById(userId);
+        int[] filmIds = recommendations.recommend(userId, Page.size(count, maxPageSize));
+        return filmStorage.getFilmsByIds(Arrays.stream(filmIds).boxed().toList());
     }
 
-    public Film addFilm(Film film) {
-        Film createdFilm = filmStorage.addFilm(film);
-        if (!createdFilm.getGenres().isEmpty()) {
-            genreRepository.addGenres(createdFilm.getId(), createdFilm.getGenres()
-                    .stream()
-                    .map(Genre::getId)
-                    .toList());
+    public int precomputeRecommendations() {
+        return recommendations.precompute();
+    }
+
+    @Transactional(readOnly = true)
+    public Collection<Film> getSimilarFilms(int filmId, int count) {
+        filmStorage.getFilmById(filmId);
+        int[] filmIds = similarity.getSimilar(filmId, Page.size(count, maxPageSize));
+        return filmStorage.getFilmsByIds(Arrays.stream(filmIds).boxed().toList());
+    }
+
+    @Transactional(readOnly = true)
+    public Collection<Film> searchFilms(String query, int count) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Search query must not be blank");
         }
+        int[] filmIds = searchIndex.search(query, Page.size(count, maxPageSize));
+        return filmStorage.getFilmsByIds(Arrays.stream(filmIds).boxed().toList());
+    }
+
+    @Transactional(readOnly = true)
+    public Collection<Film> getTrendingFilms(String window, int count) {
+        int[] filmIds = trending.getTrending(trendingWindow(window), Page.size(count, maxPageSize),
+                System.currentTimeMillis());
+        return filmStorage.getFilmsByIds(Arrays.stream(filmIds).boxed().toList());
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Film> filterFilms(FilmFilter filter, Integer after, int count) {
+        int limit = Page.size(count, maxPageSize);
+        List<Integer> filmIds = leaderboard.getTop(after, limit, filterIndex.filter(filter));
+        Integer nextCursor = filmIds.size() < limit ? null : filmIds.getLast();
+        return new Page<>(filmStorage.getFilmsByIds(filmIds), nextCursor);
+    }
+
+    public void rebuildSimilarity() {
+        similarity.reload();
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Film> getFilms(Integer after, int limit) {
+        int size = Page.size(limit, maxPageSize);
+        return Page.of(filmStorage.getFilms(after, size), size, Film::getId);
+    }
+
+    public Film addFilm(Film film) {
+        resolveReferences(film);
+        Film createdFilm = tracker.write(() -> {
+            Film added = filmStorage.addFilm(film);
+            if (!added.getGenres().isEmpty()) {
+                genreRepository.addGenres(added.getId(), added.getGenres()
+                        .stream()
+                        .map(Genre::getId)
+                        .toList());
+            }
+            leaderboard.addFilm(added.getId());
+            searchIndex.put(added.getId(), added.getName(), added.getDescription());
+            indexAttributes(added, true);
+            return added;
+        });
+        versions.filmChanged(createdFilm.getId());
         return createdFilm;
     }
 
-    public Film updateFilm(Film film) {
-        if (filmStorage.getFilmById(film.getId()) == null) {
-            throw new NotFoundException("A movie with this id was not found");
+    @Transactional
+    public FilmBatchResult addFilms(List<Film> films) {
+        List<Film> valid = new ArrayList<>(films.size());
+        List<FilmBatchResult.ItemError> errors = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            String error = validate(film);
+            if (error == null) {
+                valid.add(film);
+            } else {
+                errors.add(new FilmBatchResult.ItemError(i, error));
+            }
         }
-        Film updatedFilm = filmStorage.updateFilm(film);
-        if (!updatedFilm.getGenres().isEmpty()) {
-            genreRepository.deleteGenres(updatedFilm.getId());
-            genreRepository.addGenres(updatedFilm.getId(), updatedFilm.getGenres()
-                    .stream()
-                    .map(Genre::getId)
-                    .toList());
+        if (!valid.isEmpty()) {
+            tracker.run(() -> {
+                filmStorage.addFilms(valid);
+                genreRepository.addGenres(valid);
+                afterCommit(() -> valid.forEach(film -> {
+                    leaderboard.addFilm(film.getId());
+                    searchIndex.put(film.getId(), film.getName(), film.getDescription());
+                    indexAttributes(film, true);
+                    versions.filmChanged(film.getId());
+                }));
+            });
         }
+        log.info("Batch of {} films: {} added, {} rejected", films.size(), valid.size(), errors.size());
+        return new FilmBatchResult(valid, errors);
+    }
+
+    public Film updateFilm(Film film) {
+        resolveReferences(film);
+        Film updatedFilm = tracker.write(() -> {
+            Film updated = filmStorage.updateFilm(film);
+            if (!updated.getGenres().isEmpty()) {
+                genreRepository.deleteGenres(updated.getId());
+                genreRepository.addGenres(updated.getId(), updated.getGenres()
+                        .stream()
+                        .map(Genre::getId)
+                        .toList());
+            }
+            searchIndex.put(updated.getId(), updated.getName(), updated.getDescription());
+            indexAttributes(updated, !updated.getGenres().isEmpty());
+            return updated;
+        });
+        versions.filmChanged(updatedFilm.getId());
         return updatedFilm;
     }
 
     public void deleteFilm(Integer id) {
-        filmStorage.deleteFilm(id);
+        tracker.run(() -> {
+            filmStorage.deleteFilm(id);
+            leaderboard.removeFilm(id);
+            similarity.removeFilm(id);
+            searchIndex.remove(id);
+            filterIndex.remove(id);
+            trending.removeFilm(id);
+        });
+        versions.filmChanged(id);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void indexAttributes(Film film, boolean withGenres) {
+        filterIndex.put(film.getId(), film.getMpa().getId(), film.getReleaseDate().getYear());
+        leaderboard.setAttributes(film.getId(), film.getMpa().getId(), film.getReleaseDate().getYear());
+        if (withGenres) {
+            List<Integer> genreIds = film.getGenres().stream().map(Genre::getId).toList();
+            filterIndex.setGenres(film.getId(), genreIds);
+            leaderboard.setGenres(film.getId(), genreIds);
+        }
+    }
+
+    private boolean deleteLikeNow(int filmId, int userId) {
+        if (!likesRepository.deleteLike(filmId, userId)) {
+            return false;
+        }
+        applyLikeChange(new LikeChange(filmId, userId, false));
+        return true;
+    }
+
+    private void applyLikeChange(LikeChange change) {
+        if (change.liked()) {
+            leaderboard.addLike(change.filmId());
+            trending.addLike(change.filmId(), System.currentTimeMillis());
+        } else {
+            leaderboard.removeLike(change.filmId());
+            trending.removeLike(change.filmId(), System.currentTimeMillis());
+        }
+        similarity.apply(change);
+        recommendations.invalidate(change.userId());
+        versions.filmChanged(change.filmId());
+    }
+
+    static Duration trendingWindow(String window) {
+        Matcher matcher = TRENDING_WINDOW.matcher(window.trim().toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            throw new ValidationException("Window must be a number followed by m, h or d, e.g. 24h");
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        Duration duration = switch (matcher.group(2)) {
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+        if (duration.isZero() || duration.compareTo(TrendingFilms.MAX_WINDOW) > 0) {
+            throw new ValidationException("Window must be between 1m and " + TrendingFilms.MAX_WINDOW.toDays() + "d");
+        }
+        return duration;
+    }
+
+    private String validate(Film film) {
+        if (film == null) {
+            return "Film must not be null";
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        try {
+            resolveReferences(film);
+            return null;
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void resolveReferences(Film film) {
+        if (film.getMpa() == null || !referenceData.hasMpa(film.getMpa().getId())) {
+            throw new ValidationException("Unknown MPA rating: " + film.getMpa());
+        }
+        film.setMpa(referenceData.getMpa(film.getMpa().getId()));
+        if (film.getGenres() == null) {
+            film.setGenres(new LinkedHashSet<>());
+            return;
+        }
+        Set<Genre> genres = new TreeSet<>(Comparator.comparing(Genre::getId));
+        for (Genre genre : film.getGenres()) {
+            if (genre == null || !referenceData.hasGenre(genre.getId())) {
+                throw new ValidationException("Unknown genre: " + genre);
+            }
+            genres.add(referenceData.getGenre(genre.getId()));
+        }
+        film.setGenres(new LinkedHashSet<>(genres));
     }
 }
@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreRepository;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.Collection;
 import java.util.List;
@@ -14,13 +15,18 @@ import java.util.List;
 @RequiredArgsConstructor
 public class GenreService {
     private final GenreRepository genreRepository;
+    private final ReferenceDataCache referenceData;
 
     public Collection<Genre> getAllGenres() {
-        return genreRepository.getAllGenres();
+        return referenceData.getGenres();
+    }
+
+    public byte[] getAllGenresJson() {
+        return referenceData.getGenresJson();
     }
 
     public Genre getGenreById(Integer genreId) {
-        return genreRepository.getGenreById(genreId);
+        return referenceData.getGenre(genreId);
     }
 
     public void updateGenre(Integer filmId, List<Integer> genresIds) {
@@ -0,0 +1,198 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.IngestReport;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.Friendship;
+import ru.yandex.practicum.filmorate.storage.LikeChange;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Slf4j
+@Service
+public class IngestionService {
+    private final FilmService filmService;
+    private final UserService userService;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public IngestionService(@Autowired FilmService filmService,
+                            @Autowired UserService userService,
+                            @Autowired @Qualifier("filmRepository") FilmStorage filmStorage,
+                            @Autowired @Qualifier("userRepository") UserStorage userStorage,
+                            @Autowired ObjectMapper objectMapper,
+                            @Value("${filmorate.ingest.chunk-size}") int chunkSize) {
+        this.filmService = filmService;
+        this.userService = userService;
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public IngestReport ingestLikes(InputStream body, boolean ndjson) throws IOException {
+        return ingest("likes", body, ndjson, "filmId", (edges, progress) -> {
+            Set<Integer> users = userStorage.findExistingIds(sources(edges));
+            Set<Integer> films = filmStorage.findExistingIds(targets(edges));
+            List<LikeChange> likes = new ArrayList<>(edges.size());
+            for (long edge : edges) {
+                if (users.contains(source(edge)) && films.contains(target(edge))) {
+                    likes.add(new LikeChange(target(edge), source(edge), true));
+                }
+            }
+            progress.invalid += edges.size() - likes.size();
+            int inserted = likes.isEmpty() ? 0 : filmService.addLikes(likes).size();
+            progress.inserted += inserted;
+            progress.duplicates += likes.size() - inserted;
+        });
+    }
+
+    public IngestReport ingestFriends(InputStream body, boolean ndjson) throws IOException {
+        return ingest("friendships", body, ndjson, "friendId", (edges, progress) -> {
+            Set<Integer> ids = sources(edges);
+            ids.addAll(targets(edges));
+            Set<Integer> users = userStorage.findExistingIds(ids);
+            List<Friendship> friendships = new ArrayList<>(edges.size());
+            for (long edge : edges) {
+                int userId = source(edge);
+                int friendId = target(edge);
+                if (userId != friendId && users.contains(userId) && users.contains(friendId)) {
+                    friendships.add(new Friendship(userId, friendId));
+                }
+            }
+            progress.invalid += edges.size() - friendships.size();
+            int inserted = friendships.isEmpty() ? 0 : userService.addFriends(friendships).size();
+            progress.inserted += inserted;
+            progress.duplicates += friendships.size() - inserted;
+        });
+    }
+
+    private IngestReport ingest(String kind, InputStream body, boolean ndjson, String targetField,
+                                ChunkLoader loader) throws IOException {
+        long started = System.nanoTime();
+        Progress progress = new Progress();
+        Set<Long> chunk = new LinkedHashSet<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        boolean firstLine = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Long edge = ndjson ? parseJson(line, targetField) : parseCsv(line);
+            boolean header = firstLine && !ndjson && edge == null;
+            firstLine = false;
+            if (header) {
+                continue;
+            }
+            progress.read++;
+            if (edge == null) {
+                progress.malformed++;
+                continue;
+            }
+            if (!chunk.add(edge)) {
+                progress.duplicates++;
+            }
+            if (chunk.size() >= chunkSize) {
+                loadChunk(kind, chunk, loader, progress, started);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            loadChunk(kind, chunk, loader, progress, started);
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        IngestReport report = new IngestReport(progress.read, progress.inserted, progress.duplicates,
+                progress.invalid, progress.malformed, elapsedMillis, rate(progress.read, elapsedMillis));
+        log.info("Ingested {}: {}", kind, report);
+        return report;
+    }
+
+    private void loadChunk(String kind, Set<Long> chunk, ChunkLoader loader, Progress progress, long started) {
+        loader.load(new ArrayList<>(chunk), progress);
+        chunk.clear();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Ingesting {}: {} read, {} inserted, {} duplicates, {} invalid ({} edges/s)", kind,
+                progress.read, progress.inserted, progress.duplicates, progress.invalid,
+                rate(progress.read, elapsedMillis));
+    }
+
+    private Long parseCsv(String line) {
+        String[] parts = line.split("[,;]");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return edge(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Long parseJson(String line, String targetField) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            JsonNode source = node.get("userId");
+            JsonNode target = node.get(targetField);
+            if (source == null || target == null || !source.canConvertToInt() || !target.canConvertToInt()) {
+                return null;
+            }
+            return edge(source.intValue(), target.intValue());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long edge(int source, int target) {
+        return ((long) source << Integer.SIZE) | (target & 0xFFFFFFFFL);
+    }
+
+    private static int source(long edge) {
+        return (int) (edge >>> Integer.SIZE);
+    }
+
+    private static int target(long edge) {
+        return (int) edge;
+    }
+
+    private static Set<Integer> sources(List<Long> edges) {
+        Set<Integer> ids = new HashSet<>();
+        edges.forEach(edge -> ids.add(source(edge)));
+        return ids;
+    }
+
+    private static Set<Integer> targets(List<Long> edges) {
+        Set<Integer> ids = new HashSet<>();
+        edges.forEach(edge -> ids.add(target(edge)));
+        return ids;
+    }
+
+    private static long rate(long count, long elapsedMillis) {
+        return elapsedMillis == 0 ? count : count * 1000 / elapsedMillis;
+    }
+
+    private interface ChunkLoader {
+        void load(List<Long> edges, Progress progress);
+    }
+
+    private static class Progress {
+        private long read;
+        private long inserted;
+        private long duplicates;
+        private long invalid;
+        private long malformed;
+    }
+}
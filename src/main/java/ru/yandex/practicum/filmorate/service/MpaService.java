@@ -4,7 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.MpaRepository;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.Collection;
 
@@ -12,13 +12,17 @@ import java.util.Collection;
 @Service
 @RequiredArgsConstructor
 public class MpaService {
-    private final MpaRepository mpaRepository;
+    private final ReferenceDataCache referenceData;
 
     public Collection<Mpa> getAllMpa() {
-        return mpaRepository.getAllMpa();
+        return referenceData.getAllMpa();
+    }
+
+    public byte[] getAllMpaJson() {
+        return referenceData.getMpaJson();
     }
 
     public Mpa getMpaById(Integer mpaId) {
-        return mpaRepository.getMpaById(mpaId);
+        return referenceData.getMpa(mpaId);
     }
 }
\ No newline at end of file
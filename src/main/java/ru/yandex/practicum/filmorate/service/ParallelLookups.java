@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+@Slf4j
+@Component
+public class ParallelLookups {
+    private final ExecutorService executor;
+
+    public ParallelLookups(@Value("${filmorate.lookups.parallel:false}") boolean parallel) {
+        this.executor = parallel ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        log.info("Independent lookups run {}", parallel ? "in parallel on virtual threads" : "sequentially");
+    }
+
+    public void runAll(Runnable... lookups) {
+        if (executor == null || lookups.length < 2
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (Runnable lookup : lookups) {
+                lookup.run();
+            }
+            return;
+        }
+        CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> futures = new ArrayList<>(lookups.length);
+        for (Runnable lookup : lookups) {
+            futures.add(completion.submit(lookup, null));
+        }
+        try {
+            for (int i = 0; i < lookups.length; i++) {
+                completion.take().get();
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for lookups", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+}
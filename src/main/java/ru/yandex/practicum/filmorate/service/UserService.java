@@ -3,67 +3,226 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+import ru.yandex.practicum.filmorate.storage.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmRecommendations;
+import ru.yandex.practicum.filmorate.storage.FilmSimilarity;
+import ru.yandex.practicum.filmorate.storage.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.FriendSuggestions;
+import ru.yandex.practicum.filmorate.storage.Friendship;
 import ru.yandex.practicum.filmorate.storage.FriendshipRepository;
+import ru.yandex.practicum.filmorate.storage.LikesRepository;
+import ru.yandex.practicum.filmorate.storage.TrendingFilms;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class UserService {
+    private static final int FRIEND_LOCK_STRIPES = 64;
+
     private final UserStorage userStorage;
     private final FriendshipRepository friendshipRepository;
+    private final FriendGraph friendGraph;
+    private final FriendSuggestions friendSuggestions;
+    private final LikesRepository likesRepository;
+    private final FilmLeaderboard leaderboard;
+    private final TrendingFilms trending;
+    private final FilmRecommendations recommendations;
+    private final FilmSimilarity similarity;
+    private final ParallelLookups lookups;
+    private final EntityVersions versions;
+    private final ChangeTracker tracker;
+    private final int maxPageSize;
+    private final Lock[] friendLocks = Stream.generate(ReentrantLock::new)
+            .limit(FRIEND_LOCK_STRIPES)
+            .toArray(Lock[]::new);
 
     public UserService(@Autowired @Qualifier("userRepository") UserStorage userStorage,
-                       @Autowired FriendshipRepository friendshipRepository) {
+                       @Autowired FriendshipRepository friendshipRepository,
+                       @Autowired FriendGraph friendGraph,
+                       @Autowired FriendSuggestions friendSuggestions,
+                       @Autowired LikesRepository likesRepository,
+                       @Autowired FilmLeaderboard leaderboard,
+                       @Autowired TrendingFilms trending,
+                       @Autowired FilmRecommendations recommendations,
+                       @Autowired FilmSimilarity similarity,
+                       @Autowired ParallelLookups lookups,
+                       @Autowired EntityVersions versions,
+                       @Autowired ChangeTracker tracker,
+                       @Value("${filmorate.page.max-size}") int maxPageSize) {
         this.userStorage = userStorage;
         this.friendshipRepository = friendshipRepository;
+        this.friendGraph = friendGraph;
+        this.friendSuggestions = friendSuggestions;
+        this.likesRepository = likesRepository;
+        this.leaderboard = leaderboard;
+        this.trending = trending;
+        this.recommendations = recommendations;
+        this.similarity = similarity;
+        this.lookups = lookups;
+        this.versions = versions;
+        this.tracker = tracker;
+        this.maxPageSize = maxPageSize;
     }
 
     public void addFriend(Integer userId, Integer friendId) {
-        userStorage.getUserById(userId);
-        userStorage.getUserById(friendId);
-        friendshipRepository.addFriend(userId, friendId);
+        changeFriends(List.of(userId), () -> {
+            friendshipRepository.addFriend(userId, friendId);
+            return friendGraph.addFriend(userId, friendId);
+        });
+        friendSuggestions.invalidate(userId);
+        versions.userChanged(userId);
+        versions.friendsChanged(userId);
+    }
+
+    public List<Friendship> addFriends(List<Friendship> friendships) {
+        List<Friendship> added = changeFriends(friendships.stream().map(Friendship::userId).toList(), () -> {
+            List<Friendship> inserted = friendshipRepository.addFriends(friendships);
+            friendGraph.addFriends(inserted);
+            return inserted;
+        });
+        added.stream()
+                .mapToInt(Friendship::userId)
+                .distinct()
+                .forEach(userId -> {
+                    friendSuggestions.invalidate(userId);
+                    versions.userChanged(userId);
+                    versions.friendsChanged(userId);
+                });
+        return added;
     }
 
     public void deleteFriend(int userId, int friendId) {
-        getUserById(userId);
-        getUserById(friendId);
-        friendshipRepository.deleteFriend(userId, friendId);
+        boolean deleted = changeFriends(List.of(userId), () -> {
+            if (!friendshipRepository.deleteFriend(userId, friendId)) {
+                return false;
+            }
+            friendGraph.removeFriend(userId, friendId);
+            return true;
+        });
+        if (!deleted) {
+            requireUsers(userId, friendId);
+            return;
+        }
+        friendSuggestions.invalidate(userId);
+        versions.userChanged(userId);
+        versions.friendsChanged(userId);
     }
 
     public Collection<User> getCommonFriends(Integer userId, Integer friendId) {
+        int[] commonIds = friendGraph.getCommonFriends(userId, friendId);
+        AtomicReference<List<User>> common = new AtomicReference<>();
+        lookups.runAll(() -> userStorage.getUserById(userId),
+                () -> userStorage.getUserById(friendId),
+                () -> common.set(hydrate(commonIds)));
+        return common.get();
+    }
+
+    @Transactional(readOnly = true)
+    public Page<User> getFriends(int userId, Integer after, int limit) {
         getUserById(userId);
-        getUserById(friendId);
-        return friendshipRepository.getCommonFriends(userId, friendId);
+        int size = Page.size(limit, maxPageSize);
+        int[] friendIds = friendGraph.getFriends(userId, after, size);
+        Integer nextCursor = friendIds.length < size ? null : friendIds[friendIds.length - 1];
+        return new Page<>(hydrate(friendIds), nextCursor);
     }
 
-    public Collection<User> getFriends(int userId) {
+    @Transactional(readOnly = true)
+    public Collection<User> getSuggestions(int userId, int count) {
         getUserById(userId);
-        return friendshipRepository.getAllFriends(userId);
+        return hydrate(friendSuggestions.suggest(userId, Page.size(count, maxPageSize)));
+    }
+
+    public int precomputeSuggestions() {
+        return friendSuggestions.precompute(friendGraph.getUsersWithFriends());
     }
 
-    public Collection<User> getUsers() {
-        return userStorage.getUsers();
+    @Transactional(readOnly = true)
+    public Page<User> getUsers(Integer after, int limit) {
+        int size = Page.size(limit, maxPageSize);
+        return Page.of(userStorage.getUsers(after, size), size, User::getId);
     }
 
     public User createUser(User user) {
-        return userStorage.createUser(user);
+        User createdUser = userStorage.createUser(user);
+        versions.userChanged(createdUser.getId());
+        return createdUser;
     }
 
     public User updateUser(User user) {
-        getUserById(user.getId());
-        return userStorage.updateUser(user);
+        User updatedUser = userStorage.updateUser(user);
+        versions.userChanged(updatedUser.getId());
+        return updatedUser;
     }
 
     public void deleteUser(Integer id) {
-        userStorage.deleteUser(id);
+        List<Integer> likedFilms = likesRepository.getFilmIdsLikedBy(id);
+        List<Integer> befriendedBy = friendshipRepository.getUserIdsBefriending(id);
+        tracker.run(() -> {
+            userStorage.deleteUser(id);
+            friendGraph.removeUser(id);
+            long removedAt = System.currentTimeMillis();
+            likedFilms.forEach(filmId -> {
+                leaderboard.removeLike(filmId);
+                trending.removeLike(filmId, removedAt);
+            });
+            similarity.removeUser(id);
+        });
+        friendSuggestions.invalidateAll();
+        likedFilms.forEach(versions::filmChanged);
+        recommendations.invalidate(id);
+        versions.userChanged(id);
+        versions.friendsChanged(id);
+        befriendedBy.forEach(userId -> {
+            versions.userChanged(userId);
+            versions.friendsChanged(userId);
+        });
     }
 
+    @Transactional(readOnly = true)
     public User getUserById(Integer id) {
         return userStorage.getUserById(id);
     }
+
+    private <T> T changeFriends(Collection<Integer> userIds, Supplier<T> change) {
+        int[] stripes = userIds.stream()
+                .mapToInt(userId -> Math.floorMod(userId, friendLocks.length))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : stripes) {
+            friendLocks[stripe].lock();
+        }
+        try {
+            return tracker.write(change);
+        } finally {
+            for (int stripe : stripes) {
+                friendLocks[stripe].unlock();
+            }
+        }
+    }
+
+    private void requireUsers(int userId, int otherId) {
+        lookups.runAll(() -> userStorage.getUserById(userId), () -> userStorage.getUserById(otherId));
+    }
+
+    private List<User> hydrate(int[] userIds) {
+        return userStorage.getUsersByIds(Arrays.stream(userIds).boxed().toList());
+    }
 }
 
@@ -1,6 +1,9 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -8,15 +11,31 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 public abstract class BaseRepository<T> {
     protected final JdbcTemplate jdbc;
     protected final RowMapper<T> mapper;
+    private QueryMetrics queryMetrics = QueryMetrics.NOOP;
+
+    @Autowired(required = false)
+    public void setQueryMetrics(QueryMetrics queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
+    protected <R> R timed(String query, Supplier<R> call) {
+        return queryMetrics.record(getClass(), query, call);
+    }
 
     protected T findOne(String query, Object... params) {
-        List<T> result = jdbc.query(query, mapper, params);
+        List<T> result = timed(query, () -> jdbc.query(query, mapper, params));
         if (result.isEmpty()) {
             throw new NotFoundException("Data could not be found");
         }
@@ -24,29 +43,51 @@ public abstract class BaseRepository<T> {
     }
 
     protected List<T> findMany(String query, Object... params) {
-        return jdbc.query(query, mapper, params);
+        return timed(query, () -> jdbc.query(query, mapper, params));
+    }
+
+    protected Set<Integer> findExistingIds(String query, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return timed(query, () -> new HashSet<>(jdbc.queryForList(query.formatted(placeholders(ids.size())),
+                Integer.class, ids.toArray())));
+    }
+
+    protected static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
     }
 
     protected boolean delete(String query, Object... params) {
-        int rowDelete = jdbc.update(query, params);
+        int rowDelete = timed(query, () -> jdbc.update(query, params));
         return rowDelete > 0;
     }
 
     protected boolean update(String query, Object... params) {
-        int rowUpdate = jdbc.update(query, params);
+        int rowUpdate = timed(query, () -> jdbc.update(query, params));
         return rowUpdate > 0;
     }
 
+    protected boolean updateReferencing(String query, String missingReference, Object... params) {
+        try {
+            return update(query, params);
+        } catch (DuplicateKeyException e) {
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            throw new NotFoundException(missingReference);
+        }
+    }
+
     protected Integer insert(String query, Object... params) {
         GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbc.update(con -> {
+        timed(query, () -> jdbc.update(con -> {
             PreparedStatement ps = con
                     .prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS);
             for (int i = 0; i < params.length; i++) {
                 ps.setObject(i + 1, params[i]);
             }
             return ps;
-        }, keyHolder);
+        }, keyHolder));
 
         Integer id = keyHolder.getKeyAs(Integer.class);
 
@@ -57,10 +98,39 @@ public abstract class BaseRepository<T> {
         }
     }
 
-    protected void batchUpdateBase(String query, BatchPreparedStatementSetter bps) {
-        int[] rowUpdate = jdbc.batchUpdate(query, bps);
+    protected List<Integer> batchInsert(String query, List<Object[]> rows) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        timed(query, () -> jdbc.batchUpdate(con -> con.prepareStatement(query, PreparedStatement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Object[] params = rows.get(i);
+                        for (int j = 0; j < params.length; j++) {
+                            ps.setObject(j + 1, params[j]);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keyHolder));
+
+        List<Integer> ids = keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).intValue())
+                .toList();
+        if (ids.size() != rows.size()) {
+            throw new RuntimeException("Data could not be saved");
+        }
+        return ids;
+    }
+
+    protected int[] batchUpdateBase(String query, BatchPreparedStatementSetter bps) {
+        int[] rowUpdate = timed(query, () -> jdbc.batchUpdate(query, bps));
         if (rowUpdate.length == 0) {
             throw new RuntimeException("Couldn't update data");
         }
+        return rowUpdate;
     }
 }
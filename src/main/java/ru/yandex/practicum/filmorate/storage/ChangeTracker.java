@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+@Component
+public class ChangeTracker {
+    private static final long UNTRACKED = Long.MAX_VALUE;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate snapshots;
+    private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+    private final Lock sequences = new ReentrantLock();
+    private final Condition settled = sequences.newCondition();
+    private final Map<Long, Thread> inFlight = new HashMap<>();
+    private final ThreadLocal<Long> current = new ThreadLocal<>();
+    private long lastSequence;
+
+    public ChangeTracker(JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.snapshots = new TransactionTemplate(transactionManager);
+        this.snapshots.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public <T> T write(Supplier<T> write) {
+        if (current.get() != null) {
+            return write.get();
+        }
+        long sequence = begin();
+        boolean deferred = false;
+        try {
+            T result = write.get();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        end(sequence);
+                    }
+                });
+                deferred = true;
+            }
+            return result;
+        } finally {
+            if (!deferred) {
+                end(sequence);
+            }
+        }
+    }
+
+    public void run(Runnable write) {
+        write(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    public long current() {
+        Long sequence = current.get();
+        return sequence != null ? sequence : UNTRACKED;
+    }
+
+    public <T> Snapshot<T> snapshot(String pinQuery, Supplier<T> loader) {
+        gate.writeLock().lock();
+        try {
+            long watermark = settle();
+            return snapshots.execute(status -> {
+                jdbc.execute(pinQuery);
+                gate.writeLock().unlock();
+                return new Snapshot<>(watermark, loader.get());
+            });
+        } finally {
+            if (gate.isWriteLockedByCurrentThread()) {
+                gate.writeLock().unlock();
+            }
+        }
+    }
+
+    private long begin() {
+        long sequence;
+        gate.readLock().lock();
+        sequences.lock();
+        try {
+            sequence = ++lastSequence;
+            inFlight.put(sequence, Thread.currentThread());
+        } finally {
+            sequences.unlock();
+            gate.readLock().unlock();
+        }
+        current.set(sequence);
+        return sequence;
+    }
+
+    private void end(long sequence) {
+        current.remove();
+        sequences.lock();
+        try {
+            inFlight.remove(sequence);
+            settled.signalAll();
+        } finally {
+            sequences.unlock();
+        }
+    }
+
+    private long settle() {
+        sequences.lock();
+        try {
+            while (inFlight.size() > (inFlight.containsValue(Thread.currentThread()) ? 1 : 0)) {
+                settled.awaitUninterruptibly();
+            }
+            return lastSequence;
+        } finally {
+            sequences.unlock();
+        }
+    }
+
+    public record Snapshot<T>(long watermark, T value) {
+        public boolean includes(long sequence) {
+            return sequence <= watermark;
+        }
+    }
+}
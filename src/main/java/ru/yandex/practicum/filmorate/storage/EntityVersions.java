@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class EntityVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Integer, Long> films = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> users = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> friends = new ConcurrentHashMap<>();
+    private final AtomicLong filmsVersion = new AtomicLong();
+    private final AtomicLong usersVersion = new AtomicLong();
+    private final AtomicLong referenceVersion = new AtomicLong();
+
+    public void filmChanged(int filmId) {
+        long version = clock.incrementAndGet();
+        films.merge(filmId, version, Math::max);
+        filmsVersion.accumulateAndGet(version, Math::max);
+    }
+
+    public void userChanged(int userId) {
+        long version = clock.incrementAndGet();
+        users.merge(userId, version, Math::max);
+        usersVersion.accumulateAndGet(version, Math::max);
+    }
+
+    public void friendsChanged(int userId) {
+        friends.merge(userId, clock.incrementAndGet(), Math::max);
+    }
+
+    public void referenceDataChanged() {
+        referenceVersion.accumulateAndGet(clock.incrementAndGet(), Math::max);
+    }
+
+    public String filmTag(int filmId) {
+        return tag(films.getOrDefault(filmId, 0L), referenceVersion.get());
+    }
+
+    public String filmsTag() {
+        return tag(filmsVersion.get(), referenceVersion.get());
+    }
+
+    public String userTag(int userId) {
+        return tag(users.getOrDefault(userId, 0L));
+    }
+
+    public String friendsTag(int userId) {
+        return tag(friends.getOrDefault(userId, 0L), usersVersion.get());
+    }
+
+    public String referenceDataTag() {
+        return tag(referenceVersion.get());
+    }
+
+    private String tag(long... versions) {
+        StringBuilder tag = new StringBuilder("\"").append(epoch);
+        for (long version : versions) {
+            tag.append('-').append(Long.toString(version, 36));
+        }
+        return tag.append('"').toString();
+    }
+}
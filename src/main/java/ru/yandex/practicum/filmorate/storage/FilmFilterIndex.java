@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class FilmFilterIndex {
+    private static final String QUERY_FILMS = "SELECT FILM_ID, MPA_ID, EXTRACT(YEAR FROM RELEASE_DATE) AS RELEASE_YEAR " +
+            "FROM FILMS";
+    private static final String QUERY_FILM_GENRES = "SELECT FILM_ID, GENRE_ID FROM FILMS_GENRES";
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BitSet films = new BitSet();
+    private Map<Integer, BitSet> byGenre = new HashMap<>();
+    private Map<Integer, BitSet> byMpa = new HashMap<>();
+    private NavigableMap<Integer, BitSet> byYear = new TreeMap<>();
+
+    public FilmFilterIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        BitSet loadedFilms = new BitSet();
+        Map<Integer, BitSet> loadedMpa = new HashMap<>();
+        NavigableMap<Integer, BitSet> loadedYears = new TreeMap<>();
+        jdbc.query(QUERY_FILMS, (ResultSet rs) -> {
+            int filmId = rs.getInt("FILM_ID");
+            loadedFilms.set(filmId);
+            loadedMpa.computeIfAbsent(rs.getInt("MPA_ID"), mpaId -> new BitSet()).set(filmId);
+            loadedYears.computeIfAbsent(rs.getInt("RELEASE_YEAR"), year -> new BitSet()).set(filmId);
+        });
+        Map<Integer, BitSet> loadedGenres = new HashMap<>();
+        jdbc.query(QUERY_FILM_GENRES, (ResultSet rs) -> {
+            loadedGenres.computeIfAbsent(rs.getInt("GENRE_ID"), genreId -> new BitSet()).set(rs.getInt("FILM_ID"));
+        });
+        lock.writeLock().lock();
+        try {
+            films = loadedFilms;
+            byGenre = loadedGenres;
+            byMpa = loadedMpa;
+            byYear = loadedYears;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Filter index loaded: {} films, {} genres, {} MPA ratings, {} years", loadedFilms.cardinality(),
+                loadedGenres.size(), loadedMpa.size(), loadedYears.size());
+    }
+
+    public void put(int filmId, int mpaId, int year) {
+        lock.writeLock().lock();
+        try {
+            films.set(filmId);
+            clear(byMpa, filmId);
+            clear(byYear, filmId);
+            byMpa.computeIfAbsent(mpaId, id -> new BitSet()).set(filmId);
+            byYear.computeIfAbsent(year, id -> new BitSet()).set(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setGenres(int filmId, Collection<Integer> genreIds) {
+        lock.writeLock().lock();
+        try {
+            clear(byGenre, filmId);
+            for (Integer genreId : genreIds) {
+                byGenre.computeIfAbsent(genreId, id -> new BitSet()).set(filmId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int filmId) {
+        lock.writeLock().lock();
+        try {
+            films.clear(filmId);
+            clear(byGenre, filmId);
+            clear(byMpa, filmId);
+            clear(byYear, filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public BitSet filter(FilmFilter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet result = (BitSet) films.clone();
+            if (!filter.genres().isEmpty()) {
+                result.and(filter.allGenres() ? intersection(byGenre, filter.genres()) : union(byGenre, filter.genres()));
+            }
+            if (!filter.mpa().isEmpty() || filter.maxMpa() != null) {
+                BitSet mpa = union(byMpa, filter.mpa());
+                if (filter.maxMpa() != null) {
+                    byMpa.forEach((mpaId, bits) -> {
+                        if (mpaId <= filter.maxMpa()) {
+                            mpa.or(bits);
+                        }
+                    });
+                }
+                result.and(mpa);
+            }
+            if (filter.yearFrom() != null || filter.yearTo() != null) {
+                BitSet years = new BitSet();
+                int from = filter.yearFrom() == null ? Integer.MIN_VALUE : filter.yearFrom();
+                int to = filter.yearTo() == null ? Integer.MAX_VALUE : filter.yearTo();
+                byYear.subMap(from, true, to, true).values().forEach(years::or);
+                result.and(years);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static BitSet union(Map<Integer, BitSet> index, Collection<Integer> keys) {
+        BitSet union = new BitSet();
+        for (Integer key : keys) {
+            BitSet bits = index.get(key);
+            if (bits != null) {
+                union.or(bits);
+            }
+        }
+        return union;
+    }
+
+    private static BitSet intersection(Map<Integer, BitSet> index, Collection<Integer> keys) {
+        BitSet intersection = null;
+        for (Integer key : keys) {
+            BitSet bits = index.get(key);
+            if (bits == null) {
+                return new BitSet();
+            }
+            if (intersection == null) {
+                intersection = (BitSet) bits.clone();
+            } else {
+                intersection.and(bits);
+            }
+        }
+        return intersection == null ? new BitSet() : intersection;
+    }
+
+    private static void clear(Map<Integer, BitSet> index, int filmId) {
+        index.values().forEach(bits -> bits.clear(filmId));
+    }
+}
@@ -0,0 +1,395 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+@Slf4j
+@Component
+public class FilmLeaderboard {
+    private static final String QUERY_LIKES_BY_FILM = "SELECT f.FILM_ID, COUNT(fl.USER_ID) AS LIKES " +
+            "FROM FILMS f LEFT JOIN FILMS_LIKES fl ON f.FILM_ID = fl.FILM_ID GROUP BY f.FILM_ID";
+    private static final String QUERY_FILM_ATTRIBUTES = "SELECT FILM_ID, MPA_ID, " +
+            "EXTRACT(YEAR FROM RELEASE_DATE) AS RELEASE_YEAR FROM FILMS";
+    private static final String QUERY_FILM_GENRES = "SELECT FILM_ID, GENRE_ID FROM FILMS_GENRES";
+    private static final String PIN_FILMS = "SELECT (SELECT COUNT(*) FROM FILMS) + (SELECT COUNT(*) FROM FILMS_LIKES) " +
+            "+ (SELECT COUNT(*) FROM FILMS_GENRES)";
+    private static final int SPARSE_FACTOR = 16;
+    private static final int GENRE = 1;
+    private static final int MPA = 2;
+    private static final int YEAR = 3;
+    private static final long[] NO_PARTITIONS = new long[0];
+
+    private final JdbcTemplate jdbc;
+    private final ChangeTracker tracker;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Integer, Integer> likes = new HashMap<>();
+    private NavigableSet<Entry> ranking = new TreeSet<>();
+    private Map<Long, NavigableSet<Entry>> partitions = new HashMap<>();
+    private Map<Integer, long[]> partitionsByFilm = new HashMap<>();
+    private List<Change> pending;
+
+    public FilmLeaderboard(JdbcTemplate jdbc, ChangeTracker tracker) {
+        this.jdbc = jdbc;
+        this.tracker = tracker;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        ChangeTracker.Snapshot<Loaded> snapshot;
+        recordChanges(new ArrayList<>());
+        try {
+            snapshot = tracker.snapshot(PIN_FILMS, () -> new Loaded(loadLikes(), loadPartitionKeys()));
+        } catch (RuntimeException e) {
+            recordChanges(null);
+            throw e;
+        }
+        Map<Integer, Integer> loaded = snapshot.value().likes();
+        NavigableSet<Entry> rebuilt = new TreeSet<>();
+        loaded.forEach((filmId, count) -> rebuilt.add(new Entry(filmId, count)));
+        Map<Integer, long[]> loadedKeys = snapshot.value().partitionsByFilm();
+        Map<Long, NavigableSet<Entry>> rebuiltPartitions = new HashMap<>();
+        loadedKeys.forEach((filmId, keys) -> {
+            Integer count = loaded.get(filmId);
+            if (count != null) {
+                for (long key : keys) {
+                    rebuiltPartitions.computeIfAbsent(key, k -> new TreeSet<>()).add(new Entry(filmId, count));
+                }
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            likes = loaded;
+            ranking = rebuilt;
+            partitions = rebuiltPartitions;
+            partitionsByFilm = loadedKeys;
+            pending.stream()
+                    .filter(change -> !snapshot.includes(change.sequence()))
+                    .forEach(change -> change.apply().run());
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Leaderboard rebuilt for {} films in {} partitions", loaded.size(), rebuiltPartitions.size());
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.leaderboard.verify-interval:PT10M}")
+    public synchronized boolean verify() {
+        Map<Integer, Integer> actual;
+        recordChanges(new ArrayList<>());
+        try {
+            actual = tracker.snapshot(PIN_FILMS, this::loadLikes).value();
+        } catch (RuntimeException e) {
+            recordChanges(null);
+            throw e;
+        }
+        int drifted = 0;
+        lock.writeLock().lock();
+        try {
+            Set<Integer> changed = new HashSet<>();
+            pending.forEach(change -> changed.add(change.filmId()));
+            pending = null;
+            Set<Integer> filmIds = new HashSet<>(actual.keySet());
+            filmIds.addAll(likes.keySet());
+            for (Integer filmId : filmIds) {
+                if (!changed.contains(filmId) && !Objects.equals(actual.get(filmId), likes.get(filmId))) {
+                    drifted++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (drifted == 0) {
+            return true;
+        }
+        log.warn("Leaderboard drifted from FILMS_LIKES for {} films, rebuilding", drifted);
+        rebuild();
+        return false;
+    }
+
+    public void addFilm(int filmId) {
+        update(filmId, () -> {
+            if (likes.putIfAbsent(filmId, 0) == null) {
+                ranking.add(new Entry(filmId, 0));
+            }
+        });
+    }
+
+    public void removeFilm(int filmId) {
+        update(filmId, () -> {
+            Integer count = likes.remove(filmId);
+            if (count != null) {
+                ranking.remove(new Entry(filmId, count));
+                leavePartitions(filmId, count, partitionsByFilm.remove(filmId));
+            }
+        });
+    }
+
+    public void setAttributes(int filmId, int mpaId, int year) {
+        repartition(filmId, partition -> kind(partition) == MPA || kind(partition) == YEAR,
+                new long[]{key(MPA, mpaId), key(YEAR, year)});
+    }
+
+    public void setGenres(int filmId, Collection<Integer> genreIds) {
+        repartition(filmId, partition -> kind(partition) == GENRE,
+                genreIds.stream().mapToLong(genreId -> key(GENRE, genreId)).toArray());
+    }
+
+    public void addLike(int filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void removeLike(int filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public List<Integer> getTop(int count) {
+        return getTop(null, count);
+    }
+
+    public List<Integer> getTop(Integer after, int count) {
+        return getTop(after, count, null);
+    }
+
+    public List<Integer> getTop(Integer after, int count, Integer genreId, Integer mpaId, Integer year) {
+        List<Long> keys = new ArrayList<>(3);
+        if (genreId != null) {
+            keys.add(key(GENRE, genreId));
+        }
+        if (mpaId != null) {
+            keys.add(key(MPA, mpaId));
+        }
+        if (year != null) {
+            keys.add(key(YEAR, year));
+        }
+        if (keys.isEmpty()) {
+            return getTop(after, count);
+        }
+        lock.readLock().lock();
+        try {
+            Entry cursor = cursor(after);
+            NavigableSet<Entry> smallest = null;
+            for (Long key : keys) {
+                NavigableSet<Entry> partition = partitions.get(key);
+                if (partition == null) {
+                    return List.of();
+                }
+                if (smallest == null || partition.size() < smallest.size()) {
+                    smallest = partition;
+                }
+            }
+            NavigableSet<Entry> tail = cursor == null ? smallest : smallest.tailSet(cursor, false);
+            List<Integer> top = new ArrayList<>(Math.min(count, smallest.size()));
+            for (Entry entry : tail) {
+                if (top.size() >= count) {
+                    break;
+                }
+                if (keys.size() == 1 || inAll(partitionsByFilm.get(entry.filmId()), keys)) {
+                    top.add(entry.filmId());
+                }
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> getTop(Integer after, int count, BitSet candidates) {
+        lock.readLock().lock();
+        try {
+            Entry cursor = cursor(after);
+            if (candidates != null && (long) candidates.cardinality() * SPARSE_FACTOR < ranking.size()) {
+                return getTopOfFew(cursor, count, candidates);
+            }
+            NavigableSet<Entry> tail = cursor == null ? ranking : ranking.tailSet(cursor, false);
+            List<Integer> top = new ArrayList<>(Math.min(count, ranking.size()));
+            for (Entry entry : tail) {
+                if (top.size() >= count) {
+                    break;
+                }
+                if (candidates == null || candidates.get(entry.filmId())) {
+                    top.add(entry.filmId());
+                }
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Entry cursor(Integer after) {
+        if (after == null) {
+            return null;
+        }
+        Integer afterLikes = likes.get(after);
+        if (afterLikes == null) {
+            throw new ValidationException("Unknown cursor: " + after);
+        }
+        return new Entry(after, afterLikes);
+    }
+
+    private List<Integer> getTopOfFew(Entry cursor, int count, BitSet candidates) {
+        List<Entry> entries = new ArrayList<>(candidates.cardinality());
+        for (int filmId = candidates.nextSetBit(0); filmId >= 0; filmId = candidates.nextSetBit(filmId + 1)) {
+            Integer filmLikes = likes.get(filmId);
+            if (filmLikes != null) {
+                Entry entry = new Entry(filmId, filmLikes);
+                if (cursor == null || entry.compareTo(cursor) > 0) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.sort(null);
+        List<Integer> top = new ArrayList<>(Math.min(count, entries.size()));
+        for (int i = 0; i < entries.size() && top.size() < count; i++) {
+            top.add(entries.get(i).filmId());
+        }
+        return top;
+    }
+
+    private void changeLikes(int filmId, int delta) {
+        update(filmId, () -> {
+            Integer count = likes.get(filmId);
+            if (count == null) {
+                return;
+            }
+            int updated = Math.max(0, count + delta);
+            ranking.remove(new Entry(filmId, count));
+            ranking.add(new Entry(filmId, updated));
+            likes.put(filmId, updated);
+            long[] keys = partitionsByFilm.getOrDefault(filmId, NO_PARTITIONS);
+            leavePartitions(filmId, count, keys);
+            joinPartitions(filmId, updated, keys);
+        });
+    }
+
+    private void repartition(int filmId, LongPredicate replaced, long[] added) {
+        update(filmId, () -> {
+            Integer count = likes.get(filmId);
+            if (count == null) {
+                return;
+            }
+            long[] current = partitionsByFilm.getOrDefault(filmId, NO_PARTITIONS);
+            long[] removed = Arrays.stream(current).filter(replaced).toArray();
+            leavePartitions(filmId, count, removed);
+            joinPartitions(filmId, count, added);
+            long[] kept = Arrays.stream(current).filter(replaced.negate()).toArray();
+            long[] keys = LongStream.concat(Arrays.stream(kept), Arrays.stream(added)).distinct().toArray();
+            partitionsByFilm.put(filmId, keys);
+        });
+    }
+
+    private void update(int filmId, Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (pending != null) {
+                pending.add(new Change(tracker.current(), filmId, change));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recordChanges(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            pending = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void joinPartitions(int filmId, int count, long[] keys) {
+        for (long key : keys) {
+            partitions.computeIfAbsent(key, k -> new TreeSet<>()).add(new Entry(filmId, count));
+        }
+    }
+
+    private void leavePartitions(int filmId, int count, long[] keys) {
+        if (keys == null) {
+            return;
+        }
+        for (long key : keys) {
+            NavigableSet<Entry> partition = partitions.get(key);
+            if (partition != null && partition.remove(new Entry(filmId, count)) && partition.isEmpty()) {
+                partitions.remove(key);
+            }
+        }
+    }
+
+    private static boolean inAll(long[] filmKeys, List<Long> keys) {
+        if (filmKeys == null) {
+            return false;
+        }
+        for (long key : keys) {
+            boolean found = false;
+            for (int i = 0; i < filmKeys.length && !found; i++) {
+                found = filmKeys[i] == key;
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long key(int kind, int value) {
+        return (long) kind << Integer.SIZE | (value & 0xFFFFFFFFL);
+    }
+
+    private static int kind(long key) {
+        return (int) (key >>> Integer.SIZE);
+    }
+
+    private Map<Integer, long[]> loadPartitionKeys() {
+        Map<Integer, long[]> keys = new HashMap<>();
+        jdbc.query(QUERY_FILM_ATTRIBUTES, (ResultSet rs) -> {
+            keys.put(rs.getInt("FILM_ID"), new long[]{key(MPA, rs.getInt("MPA_ID")),
+                    key(YEAR, rs.getInt("RELEASE_YEAR"))});
+        });
+        jdbc.query(QUERY_FILM_GENRES, (ResultSet rs) -> {
+            long genreKey = key(GENRE, rs.getInt("GENRE_ID"));
+            keys.computeIfPresent(rs.getInt("FILM_ID"), (filmId, filmKeys) -> {
+                long[] extended = Arrays.copyOf(filmKeys, filmKeys.length + 1);
+                extended[filmKeys.length] = genreKey;
+                return extended;
+            });
+        });
+        return keys;
+    }
+
+    private Map<Integer, Integer> loadLikes() {
+        return jdbc.query(QUERY_LIKES_BY_FILM, (ResultSet rs) -> {
+            Map<Integer, Integer> loaded = new HashMap<>();
+            while (rs.next()) {
+                loaded.put(rs.getInt("FILM_ID"), rs.getInt("LIKES"));
+            }
+            return loaded;
+        });
+    }
+
+    private record Change(long sequence, int filmId, Runnable apply) {
+    }
+
+    private record Loaded(Map<Integer, Integer> likes, Map<Integer, long[]> partitionsByFilm) {
+    }
+
+    private record Entry(int filmId, int likes) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byLikes = Integer.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Integer.compare(filmId, other.filmId);
+        }
+    }
+}
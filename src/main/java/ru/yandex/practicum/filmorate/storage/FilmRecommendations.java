@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Component
+public class FilmRecommendations {
+    private static final int SIMILARITY_SCALE = 1_000_000;
+
+    private final LikeIndex likeIndex;
+    private final int maxFanout;
+    private final int neighbours;
+    private final int cacheDepth;
+    private final long ttlNanos;
+    private final Map<Integer, CachedRecommendations> cache;
+
+    public FilmRecommendations(LikeIndex likeIndex,
+                               @Value("${filmorate.recommendations.max-fanout:1000}") int maxFanout,
+                               @Value("${filmorate.recommendations.neighbours:20}") int neighbours,
+                               @Value("${filmorate.recommendations.cache-depth:50}") int cacheDepth,
+                               @Value("${filmorate.recommendations.cache-size:10000}") int cacheSize,
+                               @Value("${filmorate.recommendations.ttl:PT10M}") Duration ttl) {
+        this.likeIndex = likeIndex;
+        this.maxFanout = maxFanout;
+        this.neighbours = neighbours;
+        this.cacheDepth = cacheDepth;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedRecommendations> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public int[] recommend(int userId, int count) {
+        if (count > cacheDepth) {
+            return compute(userId, count);
+        }
+        CachedRecommendations cached = cache.get(userId);
+        if (cached == null || System.nanoTime() - cached.computedAt() > ttlNanos) {
+            cached = new CachedRecommendations(compute(userId, cacheDepth), System.nanoTime());
+            cache.put(userId, cached);
+        }
+        int[] films = cached.films();
+        return films.length > count ? Arrays.copyOf(films, count) : films;
+    }
+
+    public int precompute() {
+        int[] userIds = likeIndex.getUsers();
+        IntStream.of(userIds).parallel().forEach(userId ->
+                cache.put(userId, new CachedRecommendations(compute(userId, cacheDepth), System.nanoTime())));
+        log.info("Film recommendations precomputed for {} users", userIds.length);
+        return userIds.length;
+    }
+
+    public void invalidate(int userId) {
+        cache.remove(userId);
+    }
+
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    int[] compute(int userId, int count) {
+        int[] liked = likeIndex.getFilmsLikedBy(userId);
+        if (liked.length == 0) {
+            return new int[0];
+        }
+        IntCounter overlap = new IntCounter(256);
+        int step = Math.max(1, liked.length / maxFanout);
+        for (int i = 0; i < liked.length; i += step) {
+            int[] likers = likeIndex.getUsersWhoLiked(liked[i]);
+            int likerStep = Math.max(1, likers.length / maxFanout);
+            for (int j = 0; j < likers.length; j += likerStep) {
+                if (likers[j] != userId) {
+                    overlap.increment(likers[j]);
+                }
+            }
+        }
+        IntCounter similarity = new IntCounter(Math.min(overlap.size(), neighbours * 4));
+        for (int candidate : overlap.topKeys(neighbours * 4)) {
+            int[] candidateLikes = likeIndex.getFilmsLikedBy(candidate);
+            int common = LikeIndex.intersectionSize(liked, candidateLikes);
+            int union = liked.length + candidateLikes.length - common;
+            similarity.add(candidate, (int) ((long) common * SIMILARITY_SCALE / union));
+        }
+        IntCounter scores = new IntCounter(256);
+        for (int neighbour : similarity.topKeys(neighbours)) {
+            int weight = similarity.get(neighbour);
+            for (int filmId : likeIndex.getFilmsLikedBy(neighbour)) {
+                if (Arrays.binarySearch(liked, filmId) < 0) {
+                    scores.add(filmId, weight);
+                }
+            }
+        }
+        return scores.topKeys(count);
+    }
+
+    private record CachedRecommendations(int[] films, long computedAt) {
+    }
+}
@@ -1,38 +1,59 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Repository
 public class FilmRepository extends BaseRepository<Film> implements FilmStorage {
-    private static final String QUERY_FOR_ALL_FILMS = "SELECT * FROM FILMS f, " +
-            "MPA_RATINGS m WHERE f.MPA_ID = m.MPA_ID";
-    private static final String QUERY_FOR_FILM_BY_ID = "SELECT * FROM FILMS f, MPA_RATINGS m " +
-            "WHERE f.MPA_ID = m.MPA_ID AND f.FILM_ID = ?";
+    private static final String LIKES_COUNT = "COALESCE(fs.LIKES_COUNT, 0) + COALESCE((SELECT SUM(sh.LIKES_DELTA) " +
+            "FROM FILM_STATS_SHARDS sh WHERE sh.FILM_ID = f.FILM_ID), 0) AS LIKES_COUNT";
+    private static final String FILM_COLUMNS = "SELECT f.*, " + LIKES_COUNT + ", fg.GENRE_ID AS G_ID ";
+    private static final String FILM_JOINS = "LEFT JOIN FILM_STATS fs ON f.FILM_ID = fs.FILM_ID " +
+            "LEFT JOIN FILMS_GENRES fg ON f.FILM_ID = fg.FILM_ID ";
+    private static final String QUERY_FOR_FILMS_PAGE = FILM_COLUMNS + "FROM (SELECT * FROM FILMS " +
+            "WHERE FILM_ID > ? ORDER BY FILM_ID LIMIT ?) f " + FILM_JOINS + "ORDER BY f.FILM_ID, G_ID";
+    private static final String QUERY_FOR_FILM_BY_ID = FILM_COLUMNS + "FROM FILMS f " + FILM_JOINS +
+            "WHERE f.FILM_ID = ? ORDER BY G_ID";
+    private static final String QUERY_FILMS_BY_IDS = FILM_COLUMNS + "FROM FILMS f " + FILM_JOINS +
+            "WHERE f.FILM_ID IN (%s) ORDER BY f.FILM_ID, G_ID";
+    private static final String QUERY_FOR_FILMS_STREAM = "SELECT f.*, " + LIKES_COUNT + " FROM FILMS f " +
+            "LEFT JOIN FILM_STATS fs ON f.FILM_ID = fs.FILM_ID ORDER BY f.FILM_ID";
+    private static final String QUERY_FOR_GENRES_STREAM = "SELECT FILM_ID, GENRE_ID FROM FILMS_GENRES " +
+            "ORDER BY FILM_ID, GENRE_ID";
+    private static final String QUERY_EXISTING_IDS = "SELECT FILM_ID FROM FILMS WHERE FILM_ID IN (%s)";
     private static final String INSERT_QUERY = "INSERT INTO FILMS " +
             "(FILM_NAME, DESCRIPTION, RELEASE_DATE, DURATION, MPA_ID) VALUES (?, ?, ?, ?, ?)";
     private static final String UPDATE_QUERY = "UPDATE FILMS SET FILM_NAME = ?, DESCRIPTION = ?, " +
             "RELEASE_DATE = ?, DURATION = ?, MPA_ID = ? WHERE FILM_ID = ?";
     private static final String DELETE_QUERY = "DELETE FROM FILMS WHERE FILM_ID = ?";
-    private static final String QUERY_TOP_FILMS = "SELECT * FROM FILMS f LEFT JOIN MPA_RATINGS m " +
-            "ON f.MPA_ID = m.MPA_ID LEFT JOIN (SELECT FILM_ID, COUNT(FILM_ID) AS LIKES FROM FILMS_LIKES " +
-            "GROUP BY FILM_ID) fl ON f.FILM_ID = fl.FILM_ID ORDER BY LIKES DESC LIMIT ?";
-    private static final String QUERY_ALL_GENRES_FILMS = "SELECT * FROM FILMS_GENRES fg, " +
-            "GENRES g WHERE fg.GENRE_ID = g.GENRE_ID";
-    private static final String QUERY_GENRES_BY_FILM = "SELECT * FROM GENRES g, FILMS_GENRES fg " +
-            "WHERE g.GENRE_ID = fg.GENRE_ID AND fg.FILM_ID = ?";
-
-    public FilmRepository(JdbcTemplate jdbc, RowMapper<Film> mapper) {
+    private static final String INSERT_STATS_QUERY = "INSERT INTO FILM_STATS (FILM_ID) VALUES (?)";
+
+    private final ReferenceDataCache referenceData;
+    private final int batchSize;
+
+    public FilmRepository(JdbcTemplate jdbc, RowMapper<Film> mapper, ReferenceDataCache referenceData,
+                          @Value("${filmorate.films.batch-size}") int batchSize) {
         super(jdbc, mapper);
+        this.referenceData = referenceData;
+        this.batchSize = batchSize;
     }
 
     @Override
+    @Transactional
     public Film addFilm(Film film) {
         Integer id = insert(
                 INSERT_QUERY,
@@ -43,12 +64,45 @@ public class FilmRepository extends BaseRepository<Film> implements FilmStorage
                 film.getMpa().getId()
         );
         film.setId(id);
+        update(INSERT_STATS_QUERY, id);
         return film;
     }
 
+    @Override
+    @Transactional
+    public List<Film> addFilms(List<Film> films) {
+        for (int from = 0; from < films.size(); from += batchSize) {
+            List<Film> chunk = films.subList(from, Math.min(from + batchSize, films.size()));
+            List<Integer> ids = batchInsert(INSERT_QUERY, chunk.stream()
+                    .map(film -> new Object[]{
+                            film.getName(),
+                            film.getDescription(),
+                            film.getReleaseDate(),
+                            film.getDuration(),
+                            film.getMpa().getId()})
+                    .toList());
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(ids.get(i));
+            }
+            batchUpdateBase(INSERT_STATS_QUERY, new BatchPreparedStatementSetter() {
+
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, ids.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return ids.size();
+                }
+            });
+        }
+        return films;
+    }
+
     @Override
     public Film updateFilm(Film film) {
-        update(
+        boolean updated = update(
                 UPDATE_QUERY,
                 film.getName(),
                 film.getDescription(),
@@ -57,6 +111,9 @@ public class FilmRepository extends BaseRepository<Film> implements FilmStorage
                 film.getMpa().getId(),
                 film.getId()
         );
+        if (!updated) {
+            throw new NotFoundException("A movie with this id was not found");
+        }
         return film;
     }
 
@@ -64,57 +121,92 @@ public class FilmRepository extends BaseRepository<Film> implements FilmStorage
         delete(DELETE_QUERY, filmId);
     }
 
-    private Map<Integer, Set<Genre>> getAllGenres() {
-        Map<Integer, Set<Genre>> genres = new HashMap<>();
-        return jdbc.query(QUERY_ALL_GENRES_FILMS, (ResultSet rs) -> {
-            while (rs.next()) {
-                Integer filmId = rs.getInt("FILM_ID");
-                Integer genreId = rs.getInt("GENRE_ID");
-                String genreName = rs.getString("GENRE_NAME");
-                genres.computeIfAbsent(filmId, k -> new HashSet<>()).add(new Genre(genreId, genreName));
-            }
-            return genres;
-        });
+    @Override
+    public List<Film> getFilms(Integer after, int limit) {
+        return timed(QUERY_FOR_FILMS_PAGE, () -> jdbc.query(QUERY_FOR_FILMS_PAGE, this::extractFilms,
+                after == null ? 0 : after, limit));
     }
 
-    public Collection<Film> getFilms() {
-        Collection<Film> films = findMany(QUERY_FOR_ALL_FILMS);
-        Map<Integer, Set<Genre>> genres = getAllGenres();
-        for (Film film : films) {
-            film.setGenres(genres.getOrDefault(film.getId(), Collections.emptySet()));
+    @Override
+    public Film getFilmById(Integer filmId) {
+        List<Film> films = timed(QUERY_FOR_FILM_BY_ID, () -> jdbc.query(QUERY_FOR_FILM_BY_ID, this::extractFilms,
+                filmId));
+        if (films.isEmpty()) {
+            throw new NotFoundException("Data could not be found");
         }
-        return films;
+        return films.getFirst();
     }
 
     @Override
-    public Film getFilmById(Integer filmId) {
-        Film film = findOne(QUERY_FOR_FILM_BY_ID, filmId);
-        film.setGenres(getGenresByFilm(filmId));
-        return film;
+    public List<Film> getFilmsByIds(List<Integer> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, Film> films = new HashMap<>();
+        List<Film> loaded = timed(QUERY_FILMS_BY_IDS, () -> jdbc.query(
+                QUERY_FILMS_BY_IDS.formatted(placeholders(filmIds.size())), this::extractFilms, filmIds.toArray()));
+        for (Film film : loaded) {
+            films.put(film.getId(), film);
+        }
+        List<Film> ordered = new ArrayList<>(films.size());
+        for (Integer filmId : filmIds) {
+            Film film = films.get(filmId);
+            if (film != null) {
+                ordered.add(film);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> filmIds) {
+        return findExistingIds(QUERY_EXISTING_IDS, filmIds);
     }
 
     @Override
-    public Collection<Film> getTopFilms(Integer count) {
-        Collection<Film> films = findMany(QUERY_TOP_FILMS, count);
-        Map<Integer, Set<Genre>> genres = getAllGenres();
-        for (Film film : films) {
-            if (genres.containsKey(film.getId())) {
-                film.setGenres(genres.get(film.getId()));
+    public void streamFilms(int fetchSize, Consumer<Film> consumer) {
+        jdbc.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement films = con.prepareStatement(QUERY_FOR_FILMS_STREAM);
+                 PreparedStatement genres = con.prepareStatement(QUERY_FOR_GENRES_STREAM)) {
+                films.setFetchSize(fetchSize);
+                genres.setFetchSize(fetchSize);
+                try (ResultSet filmRows = films.executeQuery();
+                     ResultSet genreRows = genres.executeQuery()) {
+                    boolean hasGenre = genreRows.next();
+                    int rowNum = 0;
+                    while (filmRows.next()) {
+                        Film film = mapper.mapRow(filmRows, rowNum++);
+                        Set<Genre> filmGenres = new LinkedHashSet<>();
+                        while (hasGenre && genreRows.getInt("FILM_ID") <= film.getId()) {
+                            if (genreRows.getInt("FILM_ID") == film.getId()) {
+                                filmGenres.add(referenceData.getGenre(genreRows.getInt("GENRE_ID")));
+                            }
+                            hasGenre = genreRows.next();
+                        }
+                        film.setGenres(filmGenres);
+                        consumer.accept(film);
+                    }
+                }
             }
-        }
-        return films;
+            return null;
+        });
     }
 
-    private Set<Genre> getGenresByFilm(Integer filmId) {
-        return jdbc.query(QUERY_GENRES_BY_FILM, (ResultSet rs) -> {
-            Set<Genre> genres = new HashSet<>();
-            while (rs.next()) {
-                Integer genreId = rs.getInt("GENRE_ID");
-                String genreName = rs.getString("GENRE_NAME");
-                genres.add(new Genre(genreId, genreName));
+    private List<Film> extractFilms(ResultSet rs) throws SQLException {
+        List<Film> films = new ArrayList<>();
+        Film current = null;
+        while (rs.next()) {
+            int filmId = rs.getInt("FILM_ID");
+            if (current == null || current.getId() != filmId) {
+                current = mapper.mapRow(rs, films.size());
+                current.setGenres(new LinkedHashSet<>());
+                films.add(current);
             }
-            return genres;
-        }, filmId);
+            int genreId = rs.getInt("G_ID");
+            if (!rs.wasNull()) {
+                current.getGenres().add(referenceData.getGenre(genreId));
+            }
+        }
+        return films;
     }
 }
-
@@ -0,0 +1,350 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    private static final String QUERY_ALL_FILMS = "SELECT FILM_ID, FILM_NAME, DESCRIPTION FROM FILMS ORDER BY FILM_ID";
+    private static final int NAME_WEIGHT = 3;
+    private static final int MIN_PREFIX = 3;
+    private static final int MIN_STEM = 3;
+    private static final double SCORE_SCALE = 100;
+    private static final String[] RUSSIAN_ENDINGS = {"иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими",
+            "ией", "ия", "ие", "ий", "ая", "яя", "ое", "ее", "ые", "ый", "ой", "ом", "ем", "ах", "ях", "ов", "ев",
+            "ей", "ам", "ям", "а", "я", "о", "е", "ы", "и", "у", "ю", "ь"};
+    private static final Set<String> STOP_WORDS = Set.of("the", "and", "of", "in", "on", "to", "an", "is", "at",
+            "for", "with", "by", "from", "it", "не", "на", "по", "за", "из", "от", "до", "что", "как", "это", "его",
+            "её", "он", "она", "они", "но", "же", "то", "для");
+
+    private final JdbcTemplate jdbc;
+    private final LikeIndex likeIndex;
+    private final double likesWeight;
+    private final int maxPrefixTerms;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<String, Postings> postings = new TreeMap<>();
+    private Map<Integer, String[]> termsByFilm = new HashMap<>();
+
+    public FilmSearchIndex(JdbcTemplate jdbc,
+                           LikeIndex likeIndex,
+                           @Value("${filmorate.search.likes-weight:0.25}") double likesWeight,
+                           @Value("${filmorate.search.max-prefix-terms:50}") int maxPrefixTerms) {
+        this.jdbc = jdbc;
+        this.likeIndex = likeIndex;
+        this.likesWeight = likesWeight;
+        this.maxPrefixTerms = maxPrefixTerms;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        TreeMap<String, Postings> loadedPostings = new TreeMap<>();
+        Map<Integer, String[]> loadedTerms = new HashMap<>();
+        jdbc.query(QUERY_ALL_FILMS, (ResultSet rs) -> {
+            int filmId = rs.getInt("FILM_ID");
+            index(loadedPostings, loadedTerms, filmId, rs.getString("FILM_NAME"), rs.getString("DESCRIPTION"));
+        });
+        lock.writeLock().lock();
+        try {
+            postings = loadedPostings;
+            termsByFilm = loadedTerms;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index loaded: {} films, {} terms", loadedTerms.size(), loadedPostings.size());
+    }
+
+    public void put(int filmId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            unindex(postings, termsByFilm, filmId);
+            index(postings, termsByFilm, filmId, name, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int filmId) {
+        lock.writeLock().lock();
+        try {
+            unindex(postings, termsByFilm, filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int[] search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return new int[0];
+        }
+        IntCounter matches = null;
+        lock.readLock().lock();
+        try {
+            List<List<Postings>> expanded = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                List<Postings> termPostings = expand(term);
+                if (termPostings.isEmpty()) {
+                    return new int[0];
+                }
+                expanded.add(termPostings);
+            }
+            expanded.sort(Comparator.comparingInt(FilmSearchIndex::documentFrequency));
+            int films = Math.max(1, termsByFilm.size());
+            for (List<Postings> termPostings : expanded) {
+                IntCounter previous = matches;
+                IntCounter current = new IntCounter(previous == null ? documentFrequency(termPostings)
+                        : previous.size());
+                for (Postings list : termPostings) {
+                    double idf = Math.log(1 + (double) films / list.size);
+                    list.forEach((filmId, weight) -> {
+                        int score = (int) Math.round(SCORE_SCALE * (1 + Math.log(weight)) * idf);
+                        if (previous == null) {
+                            current.add(filmId, score);
+                            return;
+                        }
+                        int previousScore = previous.get(filmId);
+                        if (previousScore > 0) {
+                            current.add(filmId, current.get(filmId) == 0 ? previousScore + score : score);
+                        }
+                    });
+                }
+                matches = current;
+                if (matches.size() == 0) {
+                    return new int[0];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        IntCounter ranked = new IntCounter(matches.size());
+        IntCounter scores = matches;
+        scores.forEachKey(filmId -> {
+            int likes = likeIndex.getUsersWhoLiked(filmId).length;
+            ranked.add(filmId, (int) Math.round(scores.get(filmId) * (1 + likesWeight * Math.log1p(likes))));
+        });
+        return ranked.topKeys(limit);
+    }
+
+    private List<Postings> expand(String term) {
+        List<Postings> expanded = new ArrayList<>();
+        if (term.length() < MIN_PREFIX) {
+            Postings exact = postings.get(term);
+            if (exact != null) {
+                expanded.add(exact);
+            }
+            return expanded;
+        }
+        for (Postings list : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            expanded.add(list);
+            if (expanded.size() == maxPrefixTerms) {
+                break;
+            }
+        }
+        return expanded;
+    }
+
+    private static int documentFrequency(List<Postings> termPostings) {
+        int frequency = 0;
+        for (Postings list : termPostings) {
+            frequency += list.size;
+        }
+        return frequency;
+    }
+
+    private static void index(Map<String, Postings> postings, Map<Integer, String[]> termsByFilm,
+                              int filmId, String name, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(name)) {
+            weights.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(description)) {
+            weights.merge(term, 1, Integer::sum);
+        }
+        if (weights.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(filmId, entry.getValue());
+        }
+        termsByFilm.put(filmId, weights.keySet().toArray(new String[0]));
+    }
+
+    private static void unindex(Map<String, Postings> postings, Map<Integer, String[]> termsByFilm, int filmId) {
+        String[] terms = termsByFilm.remove(filmId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list != null && list.remove(filmId)) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replace('ё', 'е');
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = normalized.substring(start, i);
+                if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                    tokens.add(stem(token));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    static String stem(String token) {
+        if (token.length() <= MIN_STEM + 1) {
+            return token;
+        }
+        if (Character.UnicodeBlock.of(token.charAt(0)) == Character.UnicodeBlock.CYRILLIC) {
+            for (String ending : RUSSIAN_ENDINGS) {
+                if (token.endsWith(ending) && token.length() - ending.length() >= MIN_STEM) {
+                    return token.substring(0, token.length() - ending.length());
+                }
+            }
+            return token;
+        }
+        if (token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.endsWith("ing") && token.length() - 3 >= MIN_STEM) {
+            return token.substring(0, token.length() - 3);
+        }
+        if (token.endsWith("ed") && token.length() - 2 >= MIN_STEM) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    private interface PostingConsumer {
+        void accept(int filmId, int weight);
+    }
+
+    private static final class Postings {
+        private byte[] data = new byte[8];
+        private int length;
+        private int size;
+        private int lastFilm;
+
+        void add(int filmId, int weight) {
+            if (size == 0 || filmId > lastFilm) {
+                append(filmId, weight);
+                return;
+            }
+            int[] films = new int[size + 1];
+            int[] weights = new int[size + 1];
+            int[] count = {0};
+            forEach((id, w) -> {
+                if (id != filmId) {
+                    films[count[0]] = id;
+                    weights[count[0]++] = w;
+                }
+            });
+            int position = Arrays.binarySearch(films, 0, count[0], filmId);
+            int insertAt = -position - 1;
+            System.arraycopy(films, insertAt, films, insertAt + 1, count[0] - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, count[0] - insertAt);
+            films[insertAt] = filmId;
+            weights[insertAt] = weight;
+            encode(films, weights, count[0] + 1);
+        }
+
+        boolean remove(int filmId) {
+            int[] films = new int[size];
+            int[] weights = new int[size];
+            int[] count = {0};
+            forEach((id, w) -> {
+                if (id != filmId) {
+                    films[count[0]] = id;
+                    weights[count[0]++] = w;
+                }
+            });
+            if (count[0] != size) {
+                encode(films, weights, count[0]);
+            }
+            return size == 0;
+        }
+
+        void forEach(PostingConsumer consumer) {
+            int position = 0;
+            int filmId = 0;
+            while (position < length) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                int weight = 0;
+                shift = 0;
+                do {
+                    b = data[position++];
+                    weight |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                filmId += delta;
+                consumer.accept(filmId, weight);
+            }
+        }
+
+        private void encode(int[] films, int[] weights, int count) {
+            data = new byte[Math.max(8, count * 3)];
+            length = 0;
+            size = 0;
+            lastFilm = 0;
+            for (int i = 0; i < count; i++) {
+                append(films[i], weights[i]);
+            }
+            if (data.length > length * 2 && length > 8) {
+                data = Arrays.copyOf(data, length);
+            }
+        }
+
+        private void append(int filmId, int weight) {
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+            }
+            writeVarInt(filmId - lastFilm);
+            writeVarInt(weight);
+            lastFilm = filmId;
+            size++;
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+}
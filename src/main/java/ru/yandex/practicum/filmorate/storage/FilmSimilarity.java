@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Component
+public class FilmSimilarity {
+    private final LikeIndex likeIndex;
+    private final int maxNeighbours;
+    private final int maxUserLikes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock updates = new ReentrantLock();
+    private Map<Integer, IntCounter> coLikes = new HashMap<>();
+
+    public FilmSimilarity(LikeIndex likeIndex,
+                          @Value("${filmorate.similar.max-neighbours:200}") int maxNeighbours,
+                          @Value("${filmorate.similar.max-user-likes:2000}") int maxUserLikes) {
+        this.likeIndex = likeIndex;
+        this.maxNeighbours = maxNeighbours;
+        this.maxUserLikes = maxUserLikes;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        updates.lock();
+        try {
+            rebuildCounts();
+        } finally {
+            updates.unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.similar.rebuild-interval:PT1H}",
+            fixedDelayString = "${filmorate.similar.rebuild-interval:PT1H}")
+    public void reload() {
+        updates.lock();
+        try {
+            likeIndex.rebuild();
+            rebuildCounts();
+        } finally {
+            updates.unlock();
+        }
+    }
+
+    private void rebuildCounts() {
+        Map<Integer, IntCounter> rebuilt = new ConcurrentHashMap<>();
+        IntStream.of(likeIndex.getFilms()).parallel().forEach(filmId -> {
+            IntCounter counter = new IntCounter(maxNeighbours);
+            for (int userId : likeIndex.getUsersWhoLiked(filmId)) {
+                int[] films = likeIndex.getFilmsLikedBy(userId);
+                if (films.length > maxUserLikes) {
+                    continue;
+                }
+                for (int otherFilmId : films) {
+                    if (otherFilmId != filmId) {
+                        counter.increment(otherFilmId);
+                    }
+                }
+            }
+            if (counter.size() > 0) {
+                rebuilt.put(filmId, counter.size() > maxNeighbours ? counter.top(maxNeighbours) : counter);
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            coLikes = new HashMap<>(rebuilt);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Co-like counts rebuilt for {} films", rebuilt.size());
+    }
+
+    public int[] getSimilar(int filmId, int count) {
+        lock.readLock().lock();
+        try {
+            IntCounter counter = coLikes.get(filmId);
+            return counter == null ? new int[0] : counter.topKeys(count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean apply(LikeChange change) {
+        updates.lock();
+        try {
+            int[] before = likeIndex.getFilmsLikedBy(change.userId());
+            if (!likeIndex.apply(change)) {
+                return false;
+            }
+            int[] after = likeIndex.getFilmsLikedBy(change.userId());
+            boolean counted = before.length <= maxUserLikes;
+            boolean counts = after.length <= maxUserLikes;
+            lock.writeLock().lock();
+            try {
+                if (counted && counts) {
+                    int delta = change.liked() ? 1 : -1;
+                    for (int otherFilmId : change.liked() ? after : before) {
+                        if (otherFilmId != change.filmId()) {
+                            adjust(change.filmId(), otherFilmId, delta);
+                            adjust(otherFilmId, change.filmId(), delta);
+                        }
+                    }
+                } else if (counted) {
+                    adjustAll(before, -1);
+                } else if (counts) {
+                    adjustAll(after, 1);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return true;
+        } finally {
+            updates.unlock();
+        }
+    }
+
+    public void removeUser(int userId) {
+        updates.lock();
+        try {
+            int[] films = likeIndex.removeUser(userId);
+            if (films.length > maxUserLikes) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                adjustAll(films, -1);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            updates.unlock();
+        }
+    }
+
+    public void removeFilm(int filmId) {
+        updates.lock();
+        try {
+            int[] users = likeIndex.removeFilm(filmId);
+            lock.writeLock().lock();
+            try {
+                for (int userId : users) {
+                    int[] films = likeIndex.getFilmsLikedBy(userId);
+                    if (films.length == maxUserLikes) {
+                        adjustAll(films, 1);
+                    }
+                }
+                IntCounter counter = coLikes.remove(filmId);
+                if (counter == null) {
+                    return;
+                }
+                for (int otherFilmId : counter.topKeys(counter.size())) {
+                    IntCounter other = coLikes.get(otherFilmId);
+                    if (other != null) {
+                        other.add(filmId, -other.get(filmId));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            updates.unlock();
+        }
+    }
+
+    private void adjustAll(int[] films, int delta) {
+        for (int filmId : films) {
+            for (int otherFilmId : films) {
+                if (otherFilmId != filmId) {
+                    adjust(filmId, otherFilmId, delta);
+                }
+            }
+        }
+    }
+
+    private void adjust(int filmId, int otherFilmId, int delta) {
+        IntCounter counter = coLikes.get(filmId);
+        if (delta < 0) {
+            if (counter != null && counter.get(otherFilmId) > 0) {
+                counter.add(otherFilmId, delta);
+            }
+            return;
+        }
+        if (counter == null) {
+            counter = new IntCounter(16);
+            coLikes.put(filmId, counter);
+        }
+        counter.add(otherFilmId, delta);
+        if (counter.size() > maxNeighbours * 2) {
+            coLikes.put(filmId, counter.top(maxNeighbours));
+        }
+    }
+}
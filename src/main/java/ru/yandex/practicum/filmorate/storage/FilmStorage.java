@@ -3,18 +3,27 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     Film addFilm(Film film);
 
+    List<Film> addFilms(List<Film> films);
+
     Film updateFilm(Film film);
 
     void deleteFilm(Integer filmId);
 
-    Collection<Film> getFilms();
+    List<Film> getFilms(Integer after, int limit);
 
     Film getFilmById(Integer filmId);
 
-    Collection<Film> getTopFilms(Integer count);
+    List<Film> getFilmsByIds(List<Integer> filmIds);
+
+    Set<Integer> findExistingIds(Collection<Integer> filmIds);
+
+    void streamFilms(int fetchSize, Consumer<Film> consumer);
 }
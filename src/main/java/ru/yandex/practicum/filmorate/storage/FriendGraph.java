@@ -0,0 +1,405 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+@Slf4j
+@Component
+public class FriendGraph {
+    private static final String QUERY_ALL_FRIENDS = "SELECT USER_ID, FRIEND_ID FROM FRIENDS " +
+            "ORDER BY USER_ID, FRIEND_ID";
+    private static final String PIN_FRIENDS = "SELECT COUNT(*) FROM FRIENDS";
+    private static final int[] NO_FRIENDS = new int[0];
+
+    private final JdbcTemplate jdbc;
+    private final ChangeTracker tracker;
+    private final int compactThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int[] offsets = {0};
+    private int[] targets = NO_FRIENDS;
+    private Map<Integer, int[]> overlay = new HashMap<>();
+    private Set<Integer> removed = new HashSet<>();
+    private List<Change> pending;
+
+    public FriendGraph(JdbcTemplate jdbc,
+                       ChangeTracker tracker,
+                       @Value("${filmorate.friends.compact-threshold:1024}") int compactThreshold) {
+        this.jdbc = jdbc;
+        this.tracker = tracker;
+        this.compactThreshold = compactThreshold;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        ChangeTracker.Snapshot<int[][]> snapshot = load();
+        int[][] csr = snapshot.value();
+        lock.writeLock().lock();
+        try {
+            offsets = csr[0];
+            targets = csr[1];
+            overlay = new HashMap<>();
+            removed = new HashSet<>();
+            pending.stream()
+                    .filter(change -> !snapshot.includes(change.sequence()))
+                    .forEach(change -> change.apply().getAsBoolean());
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Friend graph loaded: {} users, {} edges", csr[0].length - 1, csr[1].length);
+    }
+
+    @Scheduled(initialDelayString = "${filmorate.friends.verify-interval:PT10M}",
+            fixedDelayString = "${filmorate.friends.verify-interval:PT10M}")
+    public synchronized boolean verify() {
+        int[][] csr = load().value();
+        int drifted = 0;
+        lock.writeLock().lock();
+        try {
+            Set<Integer> changed = new HashSet<>();
+            Set<Integer> removedUsers = new HashSet<>();
+            pending.forEach(change -> (change.userRemoved() ? removedUsers : changed).add(change.userId()));
+            pending = null;
+            int userCount = Math.max(csr[0].length - 1, offsets.length - 1);
+            for (Integer userId : overlay.keySet()) {
+                userCount = Math.max(userCount, userId + 1);
+            }
+            for (int userId = 0; userId < userCount; userId++) {
+                if (changed.contains(userId) || removedUsers.contains(userId)) {
+                    continue;
+                }
+                int[] friends = overlay.get(userId);
+                int[] actual = userId < csr[0].length - 1
+                        ? Arrays.copyOfRange(csr[1], csr[0][userId], csr[0][userId + 1]) : NO_FRIENDS;
+                if (!Arrays.equals(without(actual, removedUsers),
+                        without(withoutRemoved(friends != null ? friends.clone() : copyOf(userId)), removedUsers))) {
+                    drifted++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (drifted == 0) {
+            return true;
+        }
+        log.warn("Friend graph drifted from FRIENDS for {} users, rebuilding", drifted);
+        rebuild();
+        return false;
+    }
+
+    private ChangeTracker.Snapshot<int[][]> load() {
+        recordChanges(new ArrayList<>());
+        try {
+            return tracker.snapshot(PIN_FRIENDS, this::loadGraph);
+        } catch (RuntimeException e) {
+            recordChanges(null);
+            throw e;
+        }
+    }
+
+    private int[][] loadGraph() {
+        return jdbc.query(QUERY_ALL_FRIENDS, (ResultSet rs) -> {
+            int[] sources = new int[1024];
+            int[] friends = new int[1024];
+            int size = 0;
+            int maxUserId = 0;
+            while (rs.next()) {
+                if (size == sources.length) {
+                    sources = Arrays.copyOf(sources, size * 2);
+                    friends = Arrays.copyOf(friends, size * 2);
+                }
+                sources[size] = rs.getInt("USER_ID");
+                friends[size] = rs.getInt("FRIEND_ID");
+                maxUserId = Math.max(maxUserId, sources[size]);
+                size++;
+            }
+            int[] loadedOffsets = new int[maxUserId + 2];
+            for (int i = 0; i < size; i++) {
+                loadedOffsets[sources[i] + 1]++;
+            }
+            for (int i = 1; i < loadedOffsets.length; i++) {
+                loadedOffsets[i] += loadedOffsets[i - 1];
+            }
+            return new int[][]{loadedOffsets, Arrays.copyOf(friends, size)};
+        });
+    }
+
+    public int[] getFriends(int userId) {
+        lock.readLock().lock();
+        try {
+            int[] friends = overlay.get(userId);
+            return withoutRemoved(friends != null ? friends.clone() : copyOf(userId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] getFriends(int userId, Integer after, int limit) {
+        int[] friends = getFriends(userId);
+        int from = 0;
+        if (after != null) {
+            int position = Arrays.binarySearch(friends, after);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        return Arrays.copyOfRange(friends, from, Math.min(friends.length, from + limit));
+    }
+
+    public int[] getCommonFriends(int... userIds) {
+        if (userIds.length == 0) {
+            return NO_FRIENDS;
+        }
+        int[][] lists = new int[userIds.length][];
+        for (int i = 0; i < userIds.length; i++) {
+            lists[i] = getFriends(userIds[i]);
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        int[] common = lists[0];
+        for (int i = 1; i < lists.length && common.length > 0; i++) {
+            common = intersect(common, lists[i]);
+        }
+        return common;
+    }
+
+    public int[] getUsersWithFriends() {
+        lock.readLock().lock();
+        try {
+            int[] userIds = new int[offsets.length - 1 + overlay.size()];
+            int size = 0;
+            for (int userId = 0; userId < offsets.length - 1; userId++) {
+                if (hasFriends(userId)) {
+                    userIds[size++] = userId;
+                }
+            }
+            for (Integer userId : overlay.keySet()) {
+                if (!inBase(userId) && hasFriends(userId)) {
+                    userIds[size++] = userId;
+                }
+            }
+            return Arrays.copyOf(userIds, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(int userId, int friendId) {
+        lock.readLock().lock();
+        try {
+            return !removed.contains(friendId) && indexOf(userId, friendId) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean addFriend(int userId, int friendId) {
+        return update(userId, false, () -> {
+            int position = indexOf(userId, friendId);
+            if (position >= 0) {
+                return false;
+            }
+            int[] friends = copyOf(userId);
+            int insertAt = -position - 1;
+            int[] updated = new int[friends.length + 1];
+            System.arraycopy(friends, 0, updated, 0, insertAt);
+            updated[insertAt] = friendId;
+            System.arraycopy(friends, insertAt, updated, insertAt + 1, friends.length - insertAt);
+            putOverlay(userId, updated);
+            return true;
+        });
+    }
+
+    public void addFriends(Collection<Friendship> friendships) {
+        friendships.forEach(friendship -> addFriend(friendship.userId(), friendship.friendId()));
+    }
+
+    public boolean removeFriend(int userId, int friendId) {
+        return update(userId, false, () -> {
+            int position = indexOf(userId, friendId);
+            if (position < 0) {
+                return false;
+            }
+            int[] friends = copyOf(userId);
+            int[] updated = new int[friends.length - 1];
+            System.arraycopy(friends, 0, updated, 0, position);
+            System.arraycopy(friends, position + 1, updated, position, updated.length - position);
+            putOverlay(userId, updated);
+            return true;
+        });
+    }
+
+    public void removeUser(int userId) {
+        update(userId, true, () -> {
+            removed.add(userId);
+            putOverlay(userId, NO_FRIENDS);
+            return true;
+        });
+    }
+
+    static int[] intersect(int[] left, int[] right) {
+        int[] common = new int[Math.min(left.length, right.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                common[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return size == common.length ? common : Arrays.copyOf(common, size);
+    }
+
+    private boolean update(int userId, boolean userRemoved, BooleanSupplier change) {
+        lock.writeLock().lock();
+        try {
+            boolean changed = change.getAsBoolean();
+            if (pending != null) {
+                pending.add(new Change(tracker.current(), userId, userRemoved, change));
+            }
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recordChanges(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            pending = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean hasFriends(int userId) {
+        if (removed.contains(userId)) {
+            return false;
+        }
+        int[] friends = overlay.get(userId);
+        int from = 0;
+        int to;
+        if (friends != null) {
+            to = friends.length;
+        } else if (inBase(userId)) {
+            friends = targets;
+            from = offsets[userId];
+            to = offsets[userId + 1];
+        } else {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (!removed.contains(friends[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] without(int[] friends, Set<Integer> userIds) {
+        return userIds.isEmpty() ? friends : Arrays.stream(friends).filter(id -> !userIds.contains(id)).toArray();
+    }
+
+    private int[] withoutRemoved(int[] friends) {
+        if (removed.isEmpty()) {
+            return friends;
+        }
+        int size = 0;
+        for (int friendId : friends) {
+            if (!removed.contains(friendId)) {
+                friends[size++] = friendId;
+            }
+        }
+        return size == friends.length ? friends : Arrays.copyOf(friends, size);
+    }
+
+    private int[] copyOf(int userId) {
+        int[] friends = overlay.get(userId);
+        if (friends != null) {
+            return friends;
+        }
+        return inBase(userId) ? Arrays.copyOfRange(targets, offsets[userId], offsets[userId + 1]) : NO_FRIENDS;
+    }
+
+    private int indexOf(int userId, int friendId) {
+        int[] friends = overlay.get(userId);
+        if (friends != null) {
+            return Arrays.binarySearch(friends, friendId);
+        }
+        if (!inBase(userId)) {
+            return -1;
+        }
+        int position = Arrays.binarySearch(targets, offsets[userId], offsets[userId + 1], friendId);
+        return position >= 0 ? position - offsets[userId] : position + offsets[userId];
+    }
+
+    private boolean inBase(int userId) {
+        return userId >= 0 && userId < offsets.length - 1;
+    }
+
+    private void putOverlay(int userId, int[] friends) {
+        overlay.put(userId, friends);
+        if (overlay.size() >= compactThreshold) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int userCount = offsets.length - 1;
+        for (Integer userId : overlay.keySet()) {
+            userCount = Math.max(userCount, userId + 1);
+        }
+        int[] compactedOffsets = new int[userCount + 1];
+        int[] compactedTargets = new int[targets.length + overlayGrowth()];
+        int size = 0;
+        for (int userId = 0; userId < userCount; userId++) {
+            int[] friends = overlay.get(userId);
+            int from = 0;
+            int to;
+            if (friends == null) {
+                friends = targets;
+                from = inBase(userId) ? offsets[userId] : 0;
+                to = inBase(userId) ? offsets[userId + 1] : 0;
+            } else {
+                to = friends.length;
+            }
+            for (int i = from; i < to; i++) {
+                if (!removed.contains(friends[i])) {
+                    compactedTargets[size++] = friends[i];
+                }
+            }
+            compactedOffsets[userId + 1] = size;
+        }
+        offsets = compactedOffsets;
+        targets = Arrays.copyOf(compactedTargets, size);
+        overlay = new HashMap<>();
+        removed = new HashSet<>();
+        log.debug("Friend graph compacted: {} edges", size);
+    }
+
+    private int overlayGrowth() {
+        int growth = 0;
+        for (Map.Entry<Integer, int[]> entry : overlay.entrySet()) {
+            int userId = entry.getKey();
+            int base = inBase(userId) ? offsets[userId + 1] - offsets[userId] : 0;
+            growth += Math.max(0, entry.getValue().length - base);
+        }
+        return growth;
+    }
+
+    private record Change(long sequence, int userId, boolean userRemoved, BooleanSupplier apply) {
+    }
+}
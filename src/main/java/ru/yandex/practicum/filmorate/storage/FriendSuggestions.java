@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class FriendSuggestions {
+    private static final int PRECOMPUTE_SPLIT = 64;
+
+    private final FriendGraph friendGraph;
+    private final int maxFanout;
+    private final long timeBudgetNanos;
+    private final int cacheDepth;
+    private final Map<Integer, int[]> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public FriendSuggestions(FriendGraph friendGraph,
+                             @Value("${filmorate.suggestions.max-fanout:500}") int maxFanout,
+                             @Value("${filmorate.suggestions.time-budget:PT0.05S}") Duration timeBudget,
+                             @Value("${filmorate.suggestions.cache-depth:50}") int cacheDepth,
+                             @Value("${filmorate.suggestions.cache-size:10000}") int cacheSize) {
+        this.friendGraph = friendGraph;
+        this.maxFanout = maxFanout;
+        this.timeBudgetNanos = timeBudget.toNanos();
+        this.cacheDepth = cacheDepth;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public int[] suggest(int userId, int count) {
+        if (count > cacheDepth) {
+            return compute(userId, count);
+        }
+        int[] suggestions = cache.get(userId);
+        if (suggestions == null) {
+            long computedAt = generation.get();
+            suggestions = compute(userId, cacheDepth);
+            cacheIfCurrent(userId, suggestions, computedAt);
+        }
+        return suggestions.length > count ? Arrays.copyOf(suggestions, count) : suggestions;
+    }
+
+    public int precompute(int[] userIds) {
+        int computed = ForkJoinPool.commonPool().invoke(new PrecomputeTask(userIds, 0, userIds.length));
+        log.info("Friend suggestions precomputed for {} users", computed);
+        return computed;
+    }
+
+    public void invalidate(int userId) {
+        generation.incrementAndGet();
+        synchronized (cache) {
+            cache.remove(userId);
+            cache.keySet().removeIf(cachedUserId -> friendGraph.contains(cachedUserId, userId));
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    int[] compute(int userId, int count) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        int[] friends = friendGraph.getFriends(userId);
+        IntCounter mutualFriends = new IntCounter(Math.min(friends.length, maxFanout) * 8);
+        int step = Math.max(1, friends.length / maxFanout);
+        for (int i = 0; i < friends.length; i += step) {
+            int[] friendsOfFriend = friendGraph.getFriends(friends[i]);
+            int limit = Math.min(friendsOfFriend.length, maxFanout);
+            for (int j = 0; j < limit; j++) {
+                int candidate = friendsOfFriend[j];
+                if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                    mutualFriends.increment(candidate);
+                }
+            }
+            if (System.nanoTime() > deadline) {
+                log.debug("Suggestions for user {} cut off after {} of {} friends", userId, i + 1, friends.length);
+                break;
+            }
+        }
+        return mutualFriends.topKeys(count);
+    }
+
+    private void cacheIfCurrent(int userId, int[] suggestions, long computedAt) {
+        synchronized (cache) {
+            if (generation.get() == computedAt) {
+                cache.put(userId, suggestions);
+            }
+        }
+    }
+
+    private class PrecomputeTask extends RecursiveTask<Integer> {
+        private final int[] userIds;
+        private final int from;
+        private final int to;
+
+        private PrecomputeTask(int[] userIds, int from, int to) {
+            this.userIds = userIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= PRECOMPUTE_SPLIT) {
+                for (int i = from; i < to; i++) {
+                    long computedAt = generation.get();
+                    cacheIfCurrent(userIds[i], FriendSuggestions.this.compute(userIds[i], cacheDepth), computedAt);
+                }
+                return to - from;
+            }
+            int middle = (from + to) >>> 1;
+            PrecomputeTask left = new PrecomputeTask(userIds, from, middle);
+            left.fork();
+            return new PrecomputeTask(userIds, middle, to).compute() + left.join();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.storage;
+
+public record Friendship(int userId, int friendId) {
+}
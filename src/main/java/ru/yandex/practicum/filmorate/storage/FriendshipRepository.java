@@ -1,39 +1,112 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Repository
 public class FriendshipRepository extends BaseRepository<User> {
     private static final String INSERT_QUERY = "INSERT INTO FRIENDS (USER_ID, FRIEND_ID) VALUES (?, ?)";
+    private static final String INSERT_IF_ABSENT_QUERY = "INSERT INTO FRIENDS (USER_ID, FRIEND_ID) " +
+            "SELECT u.USER_ID, f.USER_ID FROM USERS u, USERS f WHERE u.USER_ID = ? AND f.USER_ID = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM FRIENDS fr WHERE fr.USER_ID = u.USER_ID AND fr.FRIEND_ID = f.USER_ID)";
     private static final String DELETE_QUERY = "DELETE FROM FRIENDS WHERE FRIEND_ID = ? AND USER_ID = ?";
-    private static final String QUERY_FOR_USER_FRIENDS = "SELECT * FROM USERS WHERE USER_ID IN" +
-            "(SELECT FRIEND_ID FROM FRIENDS WHERE USER_ID = ?)";
-    private static final String QUERY_FOR_COMMON_FRIENDS = "SELECT * FROM USERS WHERE USER_ID IN " +
-            "(SELECT FRIEND_ID FROM FRIENDS WHERE USER_ID = ?) AND USER_ID IN " +
+    private static final String USER_COLUMNS = "SELECT u.*, COALESCE(us.FRIENDS_COUNT, 0) AS FRIENDS_COUNT ";
+    private static final String QUERY_FOR_COMMON_FRIENDS = USER_COLUMNS + "FROM USERS u " +
+            "LEFT JOIN USER_STATS us ON u.USER_ID = us.USER_ID " +
+            "WHERE u.USER_ID IN (SELECT FRIEND_ID FROM FRIENDS WHERE USER_ID = ?) AND u.USER_ID IN " +
             "(SELECT FRIEND_ID FROM FRIENDS WHERE USER_ID = ?)";
+    private static final String QUERY_USERS_BEFRIENDING = "SELECT USER_ID FROM FRIENDS WHERE FRIEND_ID = ?";
+    private static final String ADJUST_FRIENDS_COUNT_QUERY = "MERGE INTO USER_STATS s " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER))) d (USER_ID, DELTA) ON s.USER_ID = d.USER_ID " +
+            "WHEN MATCHED THEN UPDATE SET FRIENDS_COUNT = GREATEST(0, s.FRIENDS_COUNT + d.DELTA) " +
+            "WHEN NOT MATCHED AND d.DELTA > 0 THEN INSERT (USER_ID, FRIENDS_COUNT) VALUES (d.USER_ID, d.DELTA)";
 
     public FriendshipRepository(JdbcTemplate jdbc, RowMapper<User> mapper) {
         super(jdbc, mapper);
     }
 
+    @Transactional
     public void addFriend(Integer userId, Integer friendId) {
-        update(INSERT_QUERY, userId, friendId);
+        updateReferencing(INSERT_QUERY, "User %d or %d was not found".formatted(userId, friendId), userId, friendId);
+        update(ADJUST_FRIENDS_COUNT_QUERY, userId, 1);
+    }
+
+    @Transactional
+    public List<Friendship> addFriends(List<Friendship> friendships) {
+        int[] rowUpdate = batchUpdateBase(INSERT_IF_ABSENT_QUERY, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, friendships.get(i).userId());
+                ps.setInt(2, friendships.get(i).friendId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return friendships.size();
+            }
+        });
+        List<Friendship> added = new ArrayList<>();
+        for (int i = 0; i < rowUpdate.length; i++) {
+            if (rowUpdate[i] > 0) {
+                added.add(friendships.get(i));
+            }
+        }
+        adjustFriendsCounts(added);
+        return added;
     }
 
-    public void deleteFriend(Integer userId, Integer friendId) {
-        update(DELETE_QUERY, friendId, userId);
+    @Transactional
+    public boolean deleteFriend(Integer userId, Integer friendId) {
+        boolean deleted = delete(DELETE_QUERY, friendId, userId);
+        if (deleted) {
+            update(ADJUST_FRIENDS_COUNT_QUERY, userId, -1);
+        }
+        return deleted;
     }
 
     public Collection<User> getCommonFriends(Integer userId, Integer friendId) {
         return findMany(QUERY_FOR_COMMON_FRIENDS, userId, friendId);
     }
 
-    public Collection<User> getAllFriends(Integer userId) {
-        return findMany(QUERY_FOR_USER_FRIENDS, userId);
+    public List<Integer> getUserIdsBefriending(Integer friendId) {
+        return timed(QUERY_USERS_BEFRIENDING, () -> jdbc.queryForList(QUERY_USERS_BEFRIENDING, Integer.class,
+                friendId));
+    }
+
+    private void adjustFriendsCounts(List<Friendship> added) {
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        for (Friendship friendship : added) {
+            deltas.merge(friendship.userId(), 1, Integer::sum);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Integer, Integer>> rows = new ArrayList<>(deltas.entrySet());
+        batchUpdateBase(ADJUST_FRIENDS_COUNT_QUERY, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, rows.get(i).getKey());
+                ps.setInt(2, rows.get(i).getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
     }
 }
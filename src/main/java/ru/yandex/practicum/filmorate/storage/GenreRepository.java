@@ -4,10 +4,12 @@ import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -38,6 +40,31 @@ public class GenreRepository extends BaseRepository<Genre> {
         });
     }
 
+    public void addGenres(List<Film> films) {
+        List<int[]> rows = new ArrayList<>();
+        for (Film film : films) {
+            for (Genre genre : film.getGenres()) {
+                rows.add(new int[]{film.getId(), genre.getId()});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        batchUpdateBase(INSERT_QUERY, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, rows.get(i)[0]);
+                ps.setInt(2, rows.get(i)[1]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
     public Collection<Genre> getAllGenres() {
         return findMany(QUERY_FOR_ALL_GENRES);
     }
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.storage;
+
+public record LikeChange(int filmId, int userId, boolean liked) {
+
+    long key() {
+        return ((long) filmId << Integer.SIZE) | (userId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class LikeIndex {
+    private static final String QUERY_ALL_LIKES = "SELECT USER_ID, FILM_ID FROM FILMS_LIKES " +
+            "ORDER BY USER_ID, FILM_ID";
+    private static final int[] NONE = new int[0];
+
+    private final JdbcTemplate jdbc;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Integer, int[]> filmsByUser = new HashMap<>();
+    private Map<Integer, int[]> usersByFilm = new HashMap<>();
+
+    public LikeIndex(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Integer, int[]> loadedFilmsByUser = jdbc.query(QUERY_ALL_LIKES, (ResultSet rs) -> {
+            Map<Integer, int[]> loaded = new HashMap<>();
+            int[] films = new int[64];
+            int size = 0;
+            int currentUser = 0;
+            while (rs.next()) {
+                int userId = rs.getInt("USER_ID");
+                if (size > 0 && userId != currentUser) {
+                    loaded.put(currentUser, Arrays.copyOf(films, size));
+                    size = 0;
+                }
+                currentUser = userId;
+                if (size == films.length) {
+                    films = Arrays.copyOf(films, size * 2);
+                }
+                films[size++] = rs.getInt("FILM_ID");
+            }
+            if (size > 0) {
+                loaded.put(currentUser, Arrays.copyOf(films, size));
+            }
+            return loaded;
+        });
+        Map<Integer, int[]> loadedUsersByFilm = invert(loadedFilmsByUser);
+        lock.writeLock().lock();
+        try {
+            filmsByUser = loadedFilmsByUser;
+            usersByFilm = loadedUsersByFilm;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Like index loaded: {} users, {} films", loadedFilmsByUser.size(), loadedUsersByFilm.size());
+    }
+
+    public int[] getFilmsLikedBy(int userId) {
+        lock.readLock().lock();
+        try {
+            return filmsByUser.getOrDefault(userId, NONE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] getUsersWhoLiked(int filmId) {
+        lock.readLock().lock();
+        try {
+            return usersByFilm.getOrDefault(filmId, NONE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] getUsers() {
+        lock.readLock().lock();
+        try {
+            return filmsByUser.keySet().stream().mapToInt(Integer::intValue).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] getFilms() {
+        lock.readLock().lock();
+        try {
+            return usersByFilm.keySet().stream().mapToInt(Integer::intValue).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean apply(LikeChange change) {
+        lock.writeLock().lock();
+        try {
+            if (change.liked()) {
+                boolean added = insert(filmsByUser, change.userId(), change.filmId());
+                insert(usersByFilm, change.filmId(), change.userId());
+                return added;
+            }
+            boolean removed = remove(filmsByUser, change.userId(), change.filmId());
+            remove(usersByFilm, change.filmId(), change.userId());
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int[] removeUser(int userId) {
+        lock.writeLock().lock();
+        try {
+            int[] films = filmsByUser.remove(userId);
+            if (films == null) {
+                return NONE;
+            }
+            for (int filmId : films) {
+                remove(usersByFilm, filmId, userId);
+            }
+            return films;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int[] removeFilm(int filmId) {
+        lock.writeLock().lock();
+        try {
+            int[] users = usersByFilm.remove(filmId);
+            if (users == null) {
+                return NONE;
+            }
+            for (int userId : users) {
+                remove(filmsByUser, userId, filmId);
+            }
+            return users;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static int intersectionSize(int[] left, int[] right) {
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                size++;
+                i++;
+                j++;
+            }
+        }
+        return size;
+    }
+
+    private static boolean insert(Map<Integer, int[]> index, int key, int value) {
+        int[] values = index.getOrDefault(key, NONE);
+        int position = Arrays.binarySearch(values, value);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -position - 1;
+        int[] updated = new int[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(values, insertAt, updated, insertAt + 1, values.length - insertAt);
+        index.put(key, updated);
+        return true;
+    }
+
+    private static boolean remove(Map<Integer, int[]> index, int key, int value) {
+        int[] values = index.get(key);
+        int position = values == null ? -1 : Arrays.binarySearch(values, value);
+        if (position < 0) {
+            return false;
+        }
+        if (values.length == 1) {
+            index.remove(key);
+            return true;
+        }
+        int[] updated = new int[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, position);
+        System.arraycopy(values, position + 1, updated, position, updated.length - position);
+        index.put(key, updated);
+        return true;
+    }
+
+    private static Map<Integer, int[]> invert(Map<Integer, int[]> filmsByUser) {
+        IntCounter degrees = new IntCounter(1024);
+        filmsByUser.values().forEach(films -> {
+            for (int filmId : films) {
+                degrees.increment(filmId);
+            }
+        });
+        Map<Integer, int[]> usersByFilm = new HashMap<>();
+        IntCounter filled = new IntCounter(1024);
+        int[] userIds = filmsByUser.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        for (int userId : userIds) {
+            for (int filmId : filmsByUser.get(userId)) {
+                int[] users = usersByFilm.computeIfAbsent(filmId, id -> new int[degrees.get(id)]);
+                users[filled.get(filmId)] = userId;
+                filled.increment(filmId);
+            }
+        }
+        return usersByFilm;
+    }
+}
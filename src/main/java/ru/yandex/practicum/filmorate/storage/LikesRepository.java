@@ -1,24 +1,151 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 @Repository
 public class LikesRepository extends BaseRepository<Film> {
     private static final String INSERT_QUERY_OF_FILM = "INSERT INTO FILMS_LIKES (FILM_ID, USER_ID) VALUES (?, ?)";
+    private static final String INSERT_IF_ABSENT_QUERY = "INSERT INTO FILMS_LIKES (FILM_ID, USER_ID) " +
+            "SELECT f.FILM_ID, u.USER_ID FROM FILMS f, USERS u WHERE f.FILM_ID = ? AND u.USER_ID = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM FILMS_LIKES fl WHERE fl.FILM_ID = f.FILM_ID AND fl.USER_ID = u.USER_ID)";
     private static final String DELETE_QUERY_OF_FILM = "DELETE FROM FILMS_LIKES WHERE FILM_ID = ? AND USER_ID = ?";
+    private static final String QUERY_FILMS_LIKED_BY_USER = "SELECT FILM_ID FROM FILMS_LIKES WHERE USER_ID = ?";
+    private static final String QUERY_LIKE_TARGETS = "SELECT COUNT(*) FROM FILMS f, USERS u " +
+            "WHERE f.FILM_ID = ? AND u.USER_ID = ?";
+    private static final String ADJUST_LIKES_SHARD_QUERY = "MERGE INTO FILM_STATS_SHARDS s " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS INTEGER))) d (FILM_ID, SHARD, DELTA) " +
+            "ON s.FILM_ID = d.FILM_ID AND s.SHARD = d.SHARD " +
+            "WHEN MATCHED THEN UPDATE SET LIKES_DELTA = s.LIKES_DELTA + d.DELTA " +
+            "WHEN NOT MATCHED THEN INSERT (FILM_ID, SHARD, LIKES_DELTA) VALUES (d.FILM_ID, d.SHARD, d.DELTA)";
+
+    private final int shards;
 
-    public LikesRepository(JdbcTemplate jdbc, RowMapper<Film> mapper) {
+    public LikesRepository(JdbcTemplate jdbc, RowMapper<Film> mapper,
+                           @Value("${filmorate.stats.like-shards:8}") int shards) {
         super(jdbc, mapper);
+        this.shards = Math.max(1, shards);
+    }
+
+    @Transactional
+    public boolean addLike(Integer filmId, Integer userId) {
+        boolean added = updateReferencing(INSERT_QUERY_OF_FILM,
+                "Film %d or user %d was not found".formatted(filmId, userId), filmId, userId);
+        if (added) {
+            adjustLikesShard(filmId, shard(userId), 1);
+        }
+        return added;
+    }
+
+    @Transactional
+    public boolean deleteLike(Integer filmId, Integer userId) {
+        boolean deleted = delete(DELETE_QUERY_OF_FILM, filmId, userId);
+        if (deleted) {
+            adjustLikesShard(filmId, shard(userId), -1);
+        }
+        return deleted;
+    }
+
+    @Transactional
+    public List<LikeChange> applyChanges(List<LikeChange> changes) {
+        List<LikeChange> applied = new ArrayList<>();
+        applied.addAll(applyBatch(INSERT_IF_ABSENT_QUERY, changes.stream().filter(LikeChange::liked).toList()));
+        applied.addAll(applyBatch(DELETE_QUERY_OF_FILM, changes.stream().filter(c -> !c.liked()).toList()));
+        adjustLikesCounts(applied);
+        return applied;
+    }
+
+    public void requireFilmAndUser(int filmId, int userId) {
+        Integer found = timed(QUERY_LIKE_TARGETS, () -> jdbc.queryForObject(QUERY_LIKE_TARGETS, Integer.class,
+                filmId, userId));
+        if (found == null || found == 0) {
+            throw new NotFoundException("Film %d or user %d was not found".formatted(filmId, userId));
+        }
     }
 
-    public void addLike(Integer filmId, Integer userId) {
-        jdbc.update(INSERT_QUERY_OF_FILM, filmId, userId);
+    public List<Integer> getFilmIdsLikedBy(Integer userId) {
+        return timed(QUERY_FILMS_LIKED_BY_USER, () -> jdbc.queryForList(QUERY_FILMS_LIKED_BY_USER, Integer.class,
+                userId));
     }
 
-    public void deleteLike(Integer filmId, Integer userId) {
-        jdbc.update(DELETE_QUERY_OF_FILM, filmId, userId);
+    private void adjustLikesShard(int filmId, int shard, int delta) {
+        try {
+            update(ADJUST_LIKES_SHARD_QUERY, filmId, shard, delta);
+        } catch (DuplicateKeyException e) {
+            update(ADJUST_LIKES_SHARD_QUERY, filmId, shard, delta);
+        }
+    }
+
+    private void adjustLikesCounts(List<LikeChange> applied) {
+        Map<Long, Integer> deltas = new TreeMap<>();
+        for (LikeChange change : applied) {
+            long key = (long) change.filmId() << Integer.SIZE | shard(change.userId());
+            deltas.merge(key, change.liked() ? 1 : -1, Integer::sum);
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> rows = new ArrayList<>(deltas.entrySet());
+        batchUpdateBase(ADJUST_LIKES_SHARD_QUERY, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                long key = rows.get(i).getKey();
+                ps.setInt(1, (int) (key >>> Integer.SIZE));
+                ps.setInt(2, (int) key);
+                ps.setInt(3, rows.get(i).getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private int shard(int userId) {
+        int hash = userId * 0x9E3779B9;
+        return Math.floorMod(hash ^ hash >>> 16, shards);
+    }
+
+    private List<LikeChange> applyBatch(String query, List<LikeChange> changes) {
+        if (changes.isEmpty()) {
+            return List.of();
+        }
+        int[] rowUpdate = batchUpdateBase(query, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, changes.get(i).filmId());
+                ps.setInt(2, changes.get(i).userId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return changes.size();
+            }
+        });
+        List<LikeChange> applied = new ArrayList<>();
+        for (int i = 0; i < rowUpdate.length; i++) {
+            if (rowUpdate[i] > 0) {
+                applied.add(changes.get(i));
+            }
+        }
+        return applied;
     }
 }
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+public class LikesWriteBuffer {
+    private static final int DRAIN_ATTEMPTS = 5;
+    private static final long DRAIN_BACKOFF_MILLIS = 100;
+
+    private final LikesRepository likesRepository;
+    private final ChangeTracker tracker;
+    private final boolean enabled;
+    private final int capacity;
+    private final Object flushLock = new Object();
+    private Map<Long, LikeChange> pending = new LinkedHashMap<>();
+    private volatile Consumer<List<LikeChange>> flushListener = changes -> {
+    };
+
+    public LikesWriteBuffer(LikesRepository likesRepository,
+                            ChangeTracker tracker,
+                            @Value("${filmorate.likes.write-behind.enabled}") boolean enabled,
+                            @Value("${filmorate.likes.write-behind.capacity}") int capacity) {
+        this.likesRepository = likesRepository;
+        this.tracker = tracker;
+        this.enabled = enabled;
+        this.capacity = capacity;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void onFlush(Consumer<List<LikeChange>> listener) {
+        this.flushListener = listener;
+    }
+
+    public void addLike(int filmId, int userId) {
+        enqueue(new LikeChange(filmId, userId, true));
+    }
+
+    public void removeLike(int filmId, int userId) {
+        enqueue(new LikeChange(filmId, userId, false));
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.write-behind.flush-interval}")
+    public void flush() {
+        synchronized (flushLock) {
+            List<LikeChange> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending = new LinkedHashMap<>();
+            }
+            try {
+                List<LikeChange> applied = tracker.write(() -> {
+                    List<LikeChange> changed = likesRepository.applyChanges(batch);
+                    flushListener.accept(changed);
+                    return changed;
+                });
+                log.debug("Flushed {} buffered likes, {} changed FILMS_LIKES", batch.size(), applied.size());
+            } catch (RuntimeException e) {
+                requeue(batch);
+                throw e;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        int failures = 0;
+        while (pendingCount() > 0) {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                if (++failures == DRAIN_ATTEMPTS) {
+                    log.error("Dropped {} buffered like changes after {} failed flushes", pendingCount(), failures, e);
+                    return;
+                }
+                if (!backOff(failures)) {
+                    log.error("Dropped {} buffered like changes, drain interrupted", pendingCount());
+                    return;
+                }
+            }
+        }
+        log.info("Buffered likes drained");
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    private void enqueue(LikeChange change) {
+        while (true) {
+            synchronized (this) {
+                if (pending.size() < capacity || pending.containsKey(change.key())) {
+                    pending.put(change.key(), change);
+                    return;
+                }
+            }
+            flush();
+        }
+    }
+
+    private static boolean backOff(int failures) {
+        try {
+            Thread.sleep(DRAIN_BACKOFF_MILLIS * failures);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized void requeue(List<LikeChange> batch) {
+        Map<Long, LikeChange> merged = new LinkedHashMap<>();
+        batch.forEach(change -> merged.put(change.key(), change));
+        merged.putAll(pending);
+        pending = merged;
+    }
+}
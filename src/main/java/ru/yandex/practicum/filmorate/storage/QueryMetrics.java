@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class QueryMetrics {
+    static final QueryMetrics NOOP = new QueryMetrics(null);
+
+    private static final String TIMER_NAME = "filmorate.repository.query";
+    private static final String ROWS_NAME = "filmorate.repository.rows";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, Map<String, Meters>> meters = new ConcurrentHashMap<>();
+
+    public QueryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <R> R record(Class<?> repository, String query, Supplier<R> call) {
+        if (registry == null) {
+            return call.get();
+        }
+        Meters queryMeters = meters(repository, query);
+        long started = System.nanoTime();
+        try {
+            R result = call.get();
+            queryMeters.success().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            queryMeters.rows().record(rowCount(result));
+            return result;
+        } catch (RuntimeException e) {
+            queryMeters.error().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Meters meters(Class<?> repository, String query) {
+        Map<String, Meters> byQuery = meters.computeIfAbsent(repository, this::register);
+        Meters queryMeters = byQuery.get(query);
+        if (queryMeters == null) {
+            queryMeters = byQuery.computeIfAbsent(query, unnamed -> create(repository.getSimpleName() + ".UNNAMED"));
+        }
+        return queryMeters;
+    }
+
+    private Map<String, Meters> register(Class<?> repository) {
+        Map<String, Meters> byQuery = new ConcurrentHashMap<>();
+        for (Map.Entry<String, String> entry : queryNames(repository).entrySet()) {
+            byQuery.put(entry.getKey(), create(repository.getSimpleName() + "." + entry.getValue()));
+        }
+        log.debug("Registered {} query timers for {}", byQuery.size(), repository.getSimpleName());
+        return byQuery;
+    }
+
+    private Meters create(String name) {
+        return new Meters(timer(name, "success"), timer(name, "error"),
+                DistributionSummary.builder(ROWS_NAME)
+                        .description("Rows returned or affected per repository query")
+                        .baseUnit("rows")
+                        .tag("query", name)
+                        .register(registry));
+    }
+
+    private Timer timer(String name, String outcome) {
+        return Timer.builder(TIMER_NAME)
+                .description("Repository query latency")
+                .tag("query", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Map<String, String> queryNames(Class<?> repository) {
+        Map<String, String> names = new HashMap<>();
+        for (Field field : repository.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (field.getType() == String.class && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+                try {
+                    field.setAccessible(true);
+                    names.putIfAbsent((String) field.get(null), field.getName());
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    log.warn("Query constant {}.{} is not readable", repository.getSimpleName(), field.getName());
+                }
+            }
+        }
+        return names;
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Number number) {
+            return number.longValue();
+        }
+        if (result instanceof int[] counts) {
+            long rows = 0;
+            for (int count : counts) {
+                rows += Math.max(0, count);
+            }
+            return rows;
+        }
+        return result == null ? 0 : 1;
+    }
+
+    private record Meters(Timer success, Timer error, DistributionSummary rows) {
+    }
+}
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+@Slf4j
+@Component
+public class ReferenceDataCache {
+    private final GenreRepository genreRepository;
+    private final MpaRepository mpaRepository;
+    private final ObjectMapper objectMapper;
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(GenreRepository genreRepository,
+                              MpaRepository mpaRepository,
+                              ObjectMapper objectMapper) {
+        this.genreRepository = genreRepository;
+        this.mpaRepository = mpaRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void refresh() {
+        List<Genre> genres = genreRepository.getAllGenres().stream()
+                .sorted(Comparator.comparing(Genre::getId))
+                .toList();
+        List<Mpa> mpa = mpaRepository.getAllMpa().stream()
+                .sorted(Comparator.comparing(Mpa::getId))
+                .toList();
+        Genre[] genresById = new Genre[genres.isEmpty() ? 0 : genres.getLast().getId() + 1];
+        genres.forEach(genre -> genresById[genre.getId()] = genre);
+        Mpa[] mpaById = new Mpa[mpa.isEmpty() ? 0 : mpa.getLast().getId() + 1];
+        mpa.forEach(rating -> mpaById[rating.getId()] = rating);
+        snapshot = new Snapshot(genresById, mpaById, genres, mpa, toJson(genres), toJson(mpa));
+        log.info("Reference data loaded: {} genres, {} MPA ratings", genres.size(), mpa.size());
+    }
+
+    public Collection<Genre> getGenres() {
+        return snapshot.genres();
+    }
+
+    public Collection<Mpa> getAllMpa() {
+        return snapshot.mpa();
+    }
+
+    public byte[] getGenresJson() {
+        return snapshot.genresJson();
+    }
+
+    public byte[] getMpaJson() {
+        return snapshot.mpaJson();
+    }
+
+    public boolean hasGenre(Integer genreId) {
+        return findGenre(genreId) != null;
+    }
+
+    public boolean hasMpa(Integer mpaId) {
+        return findMpa(mpaId) != null;
+    }
+
+    public Genre getGenre(Integer genreId) {
+        Genre genre = findGenre(genreId);
+        if (genre == null) {
+            throw new NotFoundException("Genre " + genreId + " not found");
+        }
+        return genre;
+    }
+
+    public Mpa getMpa(Integer mpaId) {
+        Mpa mpa = findMpa(mpaId);
+        if (mpa == null) {
+            throw new NotFoundException("MPA rating " + mpaId + " not found");
+        }
+        return mpa;
+    }
+
+    private Genre findGenre(Integer genreId) {
+        Genre[] genres = snapshot.genresById();
+        return genreId != null && genreId >= 0 && genreId < genres.length ? genres[genreId] : null;
+    }
+
+    private Mpa findMpa(Integer mpaId) {
+        Mpa[] mpa = snapshot.mpaById();
+        return mpaId != null && mpaId >= 0 && mpaId < mpa.length ? mpa[mpaId] : null;
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Reference data could not be serialized", e);
+        }
+    }
+
+    private record Snapshot(Genre[] genresById, Mpa[] mpaById, List<Genre> genres, List<Mpa> mpa,
+                            byte[] genresJson, byte[] mpaJson) {
+    }
+}
@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "filmorate.datasource.routing.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    private static final String HIKARI_PROPERTIES = "spring.datasource.hikari";
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties properties,
+                                                      Environment environment,
+                                                      @Value("${filmorate.datasource.replica-urls}")
+                                                      List<String> replicaUrls) {
+        Binder binder = Binder.get(environment);
+        DataSource primary = pooled(binder, properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build());
+        List<DataSource> replicas = replicaUrls.stream()
+                .map(url -> pooled(binder, DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .driverClassName(properties.getDriverClassName())
+                        .url(url)
+                        .username(properties.getUsername())
+                        .password(properties.getPassword())
+                        .build()))
+                .toList();
+        return new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private static DataSource pooled(Binder binder, HikariDataSource dataSource) {
+        return binder.bind(HIKARI_PROPERTIES, Bindable.ofInstance(dataSource)).orElse(dataSource);
+    }
+}
@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+
+@Slf4j
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(name = "filmorate.datasource.replica-sync.enabled", havingValue = "true")
+public class ReplicaSync {
+    private static final int BATCH_SIZE = 1000;
+    private static final Set<String> TABLE_TYPES = Set.of("TABLE", "BASE TABLE");
+
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    public ReplicaSync(ReplicaRoutingDataSource routingDataSource) {
+        this.routingDataSource = routingDataSource;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+        routingDataSource.getReplicas().forEach(schema::execute);
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.datasource.replica-sync.interval:PT2S}")
+    public void sync() {
+        try (Connection source = routingDataSource.getPrimary().getConnection()) {
+            source.setReadOnly(true);
+            List<String> tables = tablesInDependencyOrder(source);
+            for (DataSource replica : routingDataSource.getReplicas()) {
+                try (Connection target = replica.getConnection()) {
+                    copy(source, target, tables);
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Replica sync failed", e);
+        }
+    }
+
+    private void copy(Connection source, Connection target, List<String> tables) throws SQLException {
+        target.setAutoCommit(false);
+        try {
+            try (Statement statement = target.createStatement()) {
+                for (String table : tables.reversed()) {
+                    statement.executeUpdate("DELETE FROM " + table);
+                }
+            }
+            long rows = 0;
+            for (String table : tables) {
+                rows += copyTable(source, target, table);
+            }
+            target.commit();
+            log.debug("Replica synced: {} rows in {} tables", rows, tables.size());
+        } catch (SQLException | RuntimeException e) {
+            target.rollback();
+            throw e;
+        } finally {
+            target.setAutoCommit(true);
+        }
+    }
+
+    private long copyTable(Connection source, Connection target, String table) throws SQLException {
+        long rows = 0;
+        try (Statement select = source.createStatement();
+             ResultSet rs = select.executeQuery("SELECT * FROM " + table)) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+            StringJoiner names = new StringJoiner(", ");
+            for (int i = 1; i <= columns; i++) {
+                names.add(meta.getColumnName(i));
+            }
+            String insert = "INSERT INTO " + table + " (" + names + ") VALUES ("
+                    + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+            try (PreparedStatement ps = target.prepareStatement(insert)) {
+                while (rs.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        ps.setObject(i, rs.getObject(i));
+                    }
+                    ps.addBatch();
+                    if (++rows % BATCH_SIZE == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+        }
+        return rows;
+    }
+
+    private static List<String> tablesInDependencyOrder(Connection connection) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        String schema = connection.getSchema();
+        Map<String, Set<String>> parents = new TreeMap<>();
+        try (ResultSet tables = meta.getTables(null, schema, "%", null)) {
+            while (tables.next()) {
+                if (TABLE_TYPES.contains(tables.getString("TABLE_TYPE"))) {
+                    parents.put(tables.getString("TABLE_NAME"), new HashSet<>());
+                }
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : parents.entrySet()) {
+            try (ResultSet keys = meta.getImportedKeys(null, schema, entry.getKey())) {
+                while (keys.next()) {
+                    String parent = keys.getString("PKTABLE_NAME");
+                    if (!parent.equals(entry.getKey())) {
+                        entry.getValue().add(parent);
+                    }
+                }
+            }
+        }
+        List<String> ordered = new ArrayList<>(parents.size());
+        Set<String> visited = new HashSet<>();
+        for (String table : parents.keySet()) {
+            visit(table, parents, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private static void visit(String table, Map<String, Set<String>> parents, Set<String> visited,
+                              List<String> ordered) {
+        if (!visited.add(table)) {
+            return;
+        }
+        for (String parent : parents.getOrDefault(table, Set.of())) {
+            visit(parent, parents, visited, ordered);
+        }
+        ordered.add(table);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+@Slf4j
+@Component
+public class StatsReconciler {
+    private static final String QUERY_PENDING_SHARDS = "SELECT FILM_ID, SHARD, LIKES_DELTA FROM FILM_STATS_SHARDS " +
+            "WHERE LIKES_DELTA <> 0 ORDER BY FILM_ID, SHARD";
+    private static final String DRAIN_SHARD = "UPDATE FILM_STATS_SHARDS SET LIKES_DELTA = LIKES_DELTA - ? " +
+            "WHERE FILM_ID = ? AND SHARD = ?";
+    private static final String FOLD_INTO_FILM_STATS = "MERGE INTO FILM_STATS s " +
+            "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER))) d (FILM_ID, DELTA) ON s.FILM_ID = d.FILM_ID " +
+            "WHEN MATCHED THEN UPDATE SET LIKES_COUNT = s.LIKES_COUNT + d.DELTA " +
+            "WHEN NOT MATCHED THEN INSERT (FILM_ID, LIKES_COUNT) VALUES (d.FILM_ID, d.DELTA)";
+    private static final String RECONCILE_FILM_STATS = "MERGE INTO FILM_STATS s USING (SELECT f.FILM_ID, " +
+            "COUNT(fl.USER_ID) - COALESCE((SELECT SUM(sh.LIKES_DELTA) FROM FILM_STATS_SHARDS sh " +
+            "WHERE sh.FILM_ID = f.FILM_ID), 0) AS LIKES FROM FILMS f LEFT JOIN FILMS_LIKES fl " +
+            "ON f.FILM_ID = fl.FILM_ID GROUP BY f.FILM_ID) c ON s.FILM_ID = c.FILM_ID " +
+            "WHEN MATCHED AND s.LIKES_COUNT <> c.LIKES THEN UPDATE SET LIKES_COUNT = c.LIKES " +
+            "WHEN NOT MATCHED THEN INSERT (FILM_ID, LIKES_COUNT) VALUES (c.FILM_ID, c.LIKES)";
+    private static final String RECONCILE_USER_STATS = "MERGE INTO USER_STATS s USING (SELECT u.USER_ID, " +
+            "COUNT(fr.FRIEND_ID) AS FRIENDS FROM USERS u LEFT JOIN FRIENDS fr ON u.USER_ID = fr.USER_ID " +
+            "GROUP BY u.USER_ID) c ON s.USER_ID = c.USER_ID " +
+            "WHEN MATCHED AND s.FRIENDS_COUNT <> c.FRIENDS THEN UPDATE SET FRIENDS_COUNT = c.FRIENDS " +
+            "WHEN NOT MATCHED THEN INSERT (USER_ID, FRIENDS_COUNT) VALUES (c.USER_ID, c.FRIENDS)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final Lock counters = new ReentrantLock();
+
+    public StatsReconciler(JdbcTemplate jdbc, PlatformTransactionManager transactionManager) {
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.stats.fold-interval:PT1S}")
+    public int fold() {
+        return exclusively(this::foldShards);
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.stats.reconcile-interval:PT10M}")
+    public int reconcile() {
+        return exclusively(this::repairCounters);
+    }
+
+    private int exclusively(IntSupplier work) {
+        counters.lock();
+        try {
+            Integer result = transactions.execute(status -> work.getAsInt());
+            return result != null ? result : 0;
+        } finally {
+            counters.unlock();
+        }
+    }
+
+    private int foldShards() {
+        List<Object[]> pending = jdbc.query(QUERY_PENDING_SHARDS, (rs, rowNum) -> new Object[]{
+                rs.getInt("LIKES_DELTA"), rs.getInt("FILM_ID"), rs.getInt("SHARD")});
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, Integer> deltas = new TreeMap<>();
+        for (Object[] shard : pending) {
+            deltas.merge((Integer) shard[1], (Integer) shard[0], Integer::sum);
+        }
+        jdbc.batchUpdate(DRAIN_SHARD, pending);
+        jdbc.batchUpdate(FOLD_INTO_FILM_STATS, deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .map(delta -> new Object[]{delta.getKey(), delta.getValue()})
+                .toList());
+        return pending.size();
+    }
+
+    private int repairCounters() {
+        int films = jdbc.update(RECONCILE_FILM_STATS);
+        int users = jdbc.update(RECONCILE_USER_STATS);
+        if (films + users > 0) {
+            log.warn("Repaired counters for {} films and {} users", films, users);
+        }
+        return films + users;
+    }
+}
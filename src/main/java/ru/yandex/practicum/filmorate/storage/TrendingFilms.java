@@ -0,0 +1,220 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+public class TrendingFilms {
+    public static final Duration MAX_WINDOW = Duration.ofDays(7);
+
+    private static final String QUERY_RECENT_LIKES = "SELECT FILM_ID, LIKED_AT FROM FILMS_LIKES WHERE LIKED_AT >= ?";
+    private static final String PIN_LIKES = "SELECT COUNT(*) FROM FILMS_LIKES";
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final int MINUTE_BUCKETS = 60;
+    private static final int HOUR_BUCKETS = (int) MAX_WINDOW.toHours();
+    private static final double HALF_LIVES_PER_WINDOW = 4;
+    private static final double SCORE_SCALE = 1000;
+
+    private final JdbcTemplate jdbc;
+    private final ChangeTracker tracker;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Integer, Buckets> films = new HashMap<>();
+    private List<Change> pending;
+
+    public TrendingFilms(JdbcTemplate jdbc, ChangeTracker tracker) {
+        this.jdbc = jdbc;
+        this.tracker = tracker;
+    }
+
+    @PostConstruct
+    @Scheduled(initialDelayString = "${filmorate.trending.rebuild-interval:PT1H}",
+            fixedDelayString = "${filmorate.trending.rebuild-interval:PT1H}")
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        ChangeTracker.Snapshot<Map<Integer, Buckets>> snapshot;
+        recordChanges(new ArrayList<>());
+        try {
+            snapshot = tracker.snapshot(PIN_LIKES, () -> load(now));
+        } catch (RuntimeException e) {
+            recordChanges(null);
+            throw e;
+        }
+        Map<Integer, Buckets> loaded = snapshot.value();
+        lock.writeLock().lock();
+        try {
+            pending.stream()
+                    .filter(change -> !snapshot.includes(change.sequence()))
+                    .forEach(change -> change.apply().accept(loaded));
+            films = loaded;
+            pending = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Trending counters rebuilt for {} films", loaded.size());
+    }
+
+    public void addLike(int filmId, long likedAt) {
+        update(counters -> counters.computeIfAbsent(filmId, id -> new Buckets()).add(likedAt));
+    }
+
+    public void removeLike(int filmId, long removedAt) {
+        update(counters -> {
+            Buckets buckets = counters.get(filmId);
+            if (buckets != null) {
+                buckets.removeLatest(removedAt);
+            }
+        });
+    }
+
+    public void removeFilm(int filmId) {
+        update(counters -> counters.remove(filmId));
+    }
+
+    public int[] getTrending(Duration window, int count, long now) {
+        lock.readLock().lock();
+        try {
+            IntCounter scores = new IntCounter(films.size());
+            films.forEach((filmId, buckets) -> {
+                int score = (int) Math.round(SCORE_SCALE * buckets.score(window.toMillis(), now));
+                if (score > 0) {
+                    scores.add(filmId, score);
+                }
+            });
+            return scores.topKeys(count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Integer, Buckets> load(long now) {
+        Map<Integer, Buckets> loaded = new HashMap<>();
+        jdbc.query(QUERY_RECENT_LIKES, (ResultSet rs) -> {
+            long likedAt = rs.getTimestamp("LIKED_AT").getTime();
+            loaded.computeIfAbsent(rs.getInt("FILM_ID"), filmId -> new Buckets()).add(likedAt);
+        }, new Timestamp(now - MAX_WINDOW.toMillis()));
+        return loaded;
+    }
+
+    private void update(Consumer<Map<Integer, Buckets>> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(films);
+            if (pending != null) {
+                pending.add(new Change(tracker.current(), change));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recordChanges(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            pending = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Change(long sequence, Consumer<Map<Integer, Buckets>> apply) {
+    }
+
+    private static final class Buckets {
+        private final Ring minutes = new Ring(MINUTE, MINUTE_BUCKETS);
+        private final Ring hours = new Ring(HOUR, HOUR_BUCKETS);
+
+        void add(long time) {
+            minutes.add(time);
+            hours.add(time);
+        }
+
+        void removeLatest(long now) {
+            minutes.removeLatest(now);
+            hours.removeLatest(now);
+        }
+
+        double score(long window, long now) {
+            return window <= MINUTE * MINUTE_BUCKETS ? minutes.score(window, now) : hours.score(window, now);
+        }
+    }
+
+    private static final class Ring {
+        private final long unit;
+        private final int[] counts;
+        private long latest = Long.MIN_VALUE;
+
+        Ring(long unit, int size) {
+            this.unit = unit;
+            this.counts = new int[size];
+        }
+
+        void add(long time) {
+            long bucket = Math.floorDiv(time, unit);
+            if (latest == Long.MIN_VALUE || bucket - latest >= counts.length) {
+                Arrays.fill(counts, 0);
+                latest = bucket;
+            } else if (bucket > latest) {
+                for (long cleared = latest + 1; cleared <= bucket; cleared++) {
+                    counts[slot(cleared)] = 0;
+                }
+                latest = bucket;
+            } else if (latest - bucket >= counts.length) {
+                return;
+            }
+            counts[slot(bucket)]++;
+        }
+
+        void removeLatest(long now) {
+            long current = Math.floorDiv(now, unit);
+            for (int age = 0; age < counts.length; age++) {
+                long bucket = latest - age;
+                if (current - bucket >= counts.length) {
+                    return;
+                }
+                if (counts[slot(bucket)] > 0) {
+                    counts[slot(bucket)]--;
+                    return;
+                }
+            }
+        }
+
+        double score(long window, long now) {
+            long current = Math.floorDiv(now, unit);
+            long buckets = Math.min(counts.length, (window + unit - 1) / unit);
+            double halfLife = (double) window / HALF_LIVES_PER_WINDOW;
+            double score = 0;
+            for (int i = 0; i < counts.length; i++) {
+                long bucket = latest - i;
+                long age = current - bucket;
+                if (age >= buckets) {
+                    break;
+                }
+                if (age >= 0 && counts[slot(bucket)] > 0) {
+                    score += counts[slot(bucket)] * Math.pow(2, -(age + 0.5) * unit / halfLife);
+                }
+            }
+            return score;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, counts.length);
+        }
+    }
+}
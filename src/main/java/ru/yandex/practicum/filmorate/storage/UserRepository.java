@@ -1,26 +1,44 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
-import java.util.Collection;
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Repository
 public class UserRepository extends BaseRepository<User> implements UserStorage {
-    private static final String QUERY_FOR_ALL_USERS = "SELECT * FROM USERS";
-    private static final String QUERY_FOR_USER_BY_ID = "SELECT * FROM USERS WHERE USER_ID = ?";
+    private static final String USER_COLUMNS = "SELECT u.*, COALESCE(us.FRIENDS_COUNT, 0) AS FRIENDS_COUNT " +
+            "FROM USERS u LEFT JOIN USER_STATS us ON u.USER_ID = us.USER_ID ";
+    private static final String QUERY_FOR_ALL_USERS = USER_COLUMNS;
+    private static final String QUERY_FOR_USERS_PAGE = USER_COLUMNS + "WHERE u.USER_ID > ? " +
+            "ORDER BY u.USER_ID LIMIT ?";
+    private static final String QUERY_FOR_USERS_STREAM = USER_COLUMNS + "ORDER BY u.USER_ID";
+    private static final String QUERY_FOR_USER_BY_ID = USER_COLUMNS + "WHERE u.USER_ID = ?";
+    private static final String QUERY_USERS_BY_IDS = USER_COLUMNS + "WHERE u.USER_ID IN (%s)";
+    private static final String QUERY_EXISTING_IDS = "SELECT USER_ID FROM USERS WHERE USER_ID IN (%s)";
     private static final String INSERT_QUERY = "INSERT INTO USERS (EMAIL, LOGIN, USERNAME, BIRTHDAY) VALUES (?, ?, ?, ?)";
     private static final String UPDATE_QUERY = "UPDATE USERS SET EMAIL = ?, LOGIN = ?, USERNAME = ?," +
             " BIRTHDAY = ? WHERE USER_ID = ?";
     private static final String DELETE_QUERY = "DELETE FROM USERS WHERE USER_ID = ?";
+    private static final String INSERT_STATS_QUERY = "INSERT INTO USER_STATS (USER_ID) VALUES (?)";
+    private static final String RELEASE_LIKES_QUERY = "UPDATE FILM_STATS SET LIKES_COUNT = LIKES_COUNT - 1 " +
+            "WHERE FILM_ID IN (SELECT FILM_ID FROM FILMS_LIKES WHERE USER_ID = ?)";
+    private static final String RELEASE_FRIENDSHIPS_QUERY = "UPDATE USER_STATS SET FRIENDS_COUNT = FRIENDS_COUNT - 1 " +
+            "WHERE USER_ID IN (SELECT USER_ID FROM FRIENDS WHERE FRIEND_ID = ?) AND FRIENDS_COUNT > 0";
 
     public UserRepository(JdbcTemplate jdbc, RowMapper<User> mapper) {
         super(jdbc, mapper);
     }
 
     @Override
+    @Transactional
     public User createUser(User user) {
         Integer id = insert(
                 INSERT_QUERY,
@@ -30,12 +48,13 @@ public class UserRepository extends BaseRepository<User> implements UserStorage
                 user.getBirthday()
         );
         user.setId(id);
+        update(INSERT_STATS_QUERY, id);
         return user;
     }
 
     @Override
     public User updateUser(User user) {
-        update(
+        boolean updated = update(
                 UPDATE_QUERY,
                 user.getEmail(),
                 user.getLogin(),
@@ -43,6 +62,9 @@ public class UserRepository extends BaseRepository<User> implements UserStorage
                 user.getBirthday(),
                 user.getId()
         );
+        if (!updated) {
+            throw new NotFoundException("Data could not be found");
+        }
         return user;
     }
 
@@ -51,13 +73,55 @@ public class UserRepository extends BaseRepository<User> implements UserStorage
         return findMany(QUERY_FOR_ALL_USERS);
     }
 
+    @Override
+    public List<User> getUsers(Integer after, int limit) {
+        return findMany(QUERY_FOR_USERS_PAGE, after == null ? 0 : after, limit);
+    }
+
     @Override
     public User getUserById(Integer userId) {
         return findOne(QUERY_FOR_USER_BY_ID, userId);
     }
 
     @Override
+    public List<User> getUsersByIds(List<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, User> users = new HashMap<>();
+        for (User user : findMany(QUERY_USERS_BY_IDS.formatted(placeholders(userIds.size())), userIds.toArray())) {
+            users.put(user.getId(), user);
+        }
+        List<User> ordered = new ArrayList<>(users.size());
+        for (Integer userId : userIds) {
+            User user = users.get(userId);
+            if (user != null) {
+                ordered.add(user);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> userIds) {
+        return findExistingIds(QUERY_EXISTING_IDS, userIds);
+    }
+
+    @Override
+    public void streamUsers(int fetchSize, Consumer<User> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(mapper.mapRow(rs, rs.getRow()));
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(QUERY_FOR_USERS_STREAM);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, handler);
+    }
+
+    @Override
+    @Transactional
     public void deleteUser(Integer id) {
+        update(RELEASE_LIKES_QUERY, id);
+        update(RELEASE_FRIENDSHIPS_QUERY, id);
         delete(DELETE_QUERY, id);
     }
 }
\ No newline at end of file
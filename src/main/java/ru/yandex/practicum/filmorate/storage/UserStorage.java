@@ -3,6 +3,9 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
@@ -12,7 +15,15 @@ public interface UserStorage {
 
     Collection<User> getUsers();
 
+    List<User> getUsers(Integer after, int limit);
+
     User getUserById(Integer id);
 
+    List<User> getUsersByIds(List<Integer> userIds);
+
+    Set<Integer> findExistingIds(Collection<Integer> userIds);
+
+    void streamUsers(int fetchSize, Consumer<User> consumer);
+
     void deleteUser(Integer id);
 }
@@ -1,5 +1,8 @@
 SET REFERENTIAL_INTEGRITY FALSE;
 TRUNCATE TABLE FRIENDS      RESTART IDENTITY;
+TRUNCATE TABLE USER_STATS;
+TRUNCATE TABLE FILM_STATS_SHARDS;
+TRUNCATE TABLE FILM_STATS;
 TRUNCATE TABLE FILMS_GENRES  RESTART IDENTITY;
 TRUNCATE TABLE GENRES        RESTART IDENTITY;
 TRUNCATE TABLE FILMS_LIKES   RESTART IDENTITY;
@@ -32,11 +32,15 @@ CREATE TABLE IF NOT EXISTS FILMS
 
 CREATE TABLE IF NOT EXISTS FILMS_LIKES
 (
-    FILM_ID INTEGER REFERENCES FILMS (FILM_ID) ON DELETE CASCADE NOT NULL,
-    USER_ID INTEGER REFERENCES USERS (USER_ID) ON DELETE CASCADE NOT NULL,
+    FILM_ID  INTEGER REFERENCES FILMS (FILM_ID) ON DELETE CASCADE NOT NULL,
+    USER_ID  INTEGER REFERENCES USERS (USER_ID) ON DELETE CASCADE NOT NULL,
+    LIKED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP                 NOT NULL,
     PRIMARY KEY (FILM_ID, USER_ID)
 );
 
+ALTER TABLE FILMS_LIKES ADD COLUMN IF NOT EXISTS LIKED_AT TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+CREATE INDEX IF NOT EXISTS FILMS_LIKES_LIKED_AT_IDX ON FILMS_LIKES (LIKED_AT);
+
 CREATE TABLE IF NOT EXISTS FILMS_GENRES
 (
     FILM_ID  INTEGER REFERENCES FILMS (FILM_ID) ON DELETE CASCADE  NOT NULL,
@@ -49,4 +53,26 @@ CREATE TABLE IF NOT EXISTS FRIENDS
     USER_ID   INTEGER REFERENCES USERS (USER_ID) ON DELETE CASCADE NOT NULL,
     FRIEND_ID INTEGER REFERENCES USERS (USER_ID) ON DELETE CASCADE NOT NULL,
     PRIMARY KEY (USER_ID, FRIEND_ID)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS FILM_STATS
+(
+    FILM_ID     INTEGER PRIMARY KEY REFERENCES FILMS (FILM_ID) ON DELETE CASCADE NOT NULL,
+    LIKES_COUNT INTEGER DEFAULT 0                                                NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS FILM_STATS_LIKES_IDX ON FILM_STATS (LIKES_COUNT DESC, FILM_ID);
+
+CREATE TABLE IF NOT EXISTS USER_STATS
+(
+    USER_ID       INTEGER PRIMARY KEY REFERENCES USERS (USER_ID) ON DELETE CASCADE NOT NULL,
+    FRIENDS_COUNT INTEGER DEFAULT 0                                                NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS FILM_STATS_SHARDS
+(
+    FILM_ID     INTEGER REFERENCES FILMS (FILM_ID) ON DELETE CASCADE NOT NULL,
+    SHARD       INTEGER                                              NOT NULL,
+    LIKES_DELTA INTEGER DEFAULT 0                                    NOT NULL,
+    PRIMARY KEY (FILM_ID, SHARD)
+);
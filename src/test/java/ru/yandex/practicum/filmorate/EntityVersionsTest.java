@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.EntityVersions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityVersionsTest {
+
+    private final EntityVersions versions = new EntityVersions();
+
+    @Test
+    void shouldChangeOnlyAffectedTags() {
+        String film = versions.filmTag(1);
+        String otherFilm = versions.filmTag(2);
+        String films = versions.filmsTag();
+
+        versions.filmChanged(1);
+
+        assertThat(versions.filmTag(1)).isNotEqualTo(film).startsWith("\"").endsWith("\"");
+        assertThat(versions.filmTag(2)).isEqualTo(otherFilm);
+        assertThat(versions.filmsTag()).isNotEqualTo(films);
+    }
+
+    @Test
+    void shouldChangeFriendsTagWhenAnyUserChanges() {
+        String friends = versions.friendsTag(1);
+
+        versions.userChanged(2);
+
+        assertThat(versions.friendsTag(1)).isNotEqualTo(friends);
+    }
+}
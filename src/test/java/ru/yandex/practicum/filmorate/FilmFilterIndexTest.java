@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmLeaderboard.class,
+        FilmFilterIndex.class})
+class FilmFilterIndexTest {
+
+    private final FilmRepository filmRepository;
+    private final GenreRepository genreRepository;
+    private final UserRepository userRepository;
+    private final LikesRepository likesRepository;
+    private final FilmLeaderboard leaderboard;
+    private final FilmFilterIndex filterIndex;
+
+    private int comedy1995;
+    private int comedyDrama1999;
+    private int drama2010;
+
+    @BeforeEach
+    void setUp() {
+        comedy1995 = filmRepository.addFilm(film(1995, 1)).getId();
+        comedyDrama1999 = filmRepository.addFilm(film(1999, 3)).getId();
+        drama2010 = filmRepository.addFilm(film(2010, 4)).getId();
+        genreRepository.addGenres(comedy1995, List.of(1));
+        genreRepository.addGenres(comedyDrama1999, List.of(1, 2));
+        genreRepository.addGenres(drama2010, List.of(2));
+        User user = userRepository.createUser(user("filter"));
+        likesRepository.addLike(comedyDrama1999, user.getId());
+        leaderboard.rebuild();
+        filterIndex.rebuild();
+    }
+
+    @Test
+    void shouldCombineGenreMpaAndYearFilters() {
+        assertThat(top(FilmFilter.of(List.of(1, 2), "all", List.of(), null, null, null)))
+                .containsExactly(comedyDrama1999);
+        assertThat(top(FilmFilter.of(List.of(1, 2), "any", List.of(), 3, 1990, 2000)))
+                .containsExactly(comedyDrama1999, comedy1995);
+        assertThat(top(FilmFilter.of(List.of(), "all", List.of(4), null, null, null)))
+                .containsExactly(drama2010);
+        assertThat(top(FilmFilter.of(List.of(2), "all", List.of(), null, 2000, null)))
+                .containsExactly(drama2010);
+    }
+
+    @Test
+    void shouldFollowFilmWrites() {
+        filterIndex.put(drama2010, 1, 1996);
+        filterIndex.setGenres(drama2010, List.of(1));
+        filterIndex.remove(comedyDrama1999);
+
+        assertThat(top(FilmFilter.of(List.of(1), "all", List.of(), null, 1990, 2000)))
+                .containsExactly(comedy1995, drama2010);
+        assertThat(leaderboard.getTop(comedy1995, 10, filterIndex.filter(
+                FilmFilter.of(List.of(1), "all", List.of(), null, null, null)))).containsExactly(drama2010);
+    }
+
+    private List<Integer> top(FilmFilter filter) {
+        return leaderboard.getTop(null, 10, filterIndex.filter(filter));
+    }
+
+    private static Film film(int year, int mpaId) {
+        return Film.builder()
+                .name("Film " + year)
+                .description("Test description")
+                .releaseDate(LocalDate.of(year, 6, 1))
+                .duration(100)
+                .mpa(new Mpa(mpaId, null))
+                .build();
+    }
+}
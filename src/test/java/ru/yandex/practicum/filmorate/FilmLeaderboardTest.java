@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.FilmLeaderboard;
+import ru.yandex.practicum.filmorate.storage.FilmRepository;
+import ru.yandex.practicum.filmorate.storage.LikesRepository;
+import ru.yandex.practicum.filmorate.storage.UserRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(FilmLeaderboard.class)
+class FilmLeaderboardTest {
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final LikesRepository likesRepository;
+    private final FilmLeaderboard leaderboard;
+    private final ChangeTracker tracker;
+    private final JdbcTemplate jdbc;
+
+    private Film film1;
+    private Film film2;
+    private Film film3;
+    private User user1;
+    private User user2;
+
+    @BeforeEach
+    void setUp() {
+        film1 = filmRepository.addFilm(film("Film1"));
+        film2 = filmRepository.addFilm(film("Film2"));
+        film3 = filmRepository.addFilm(film("Film3"));
+        user1 = userRepository.createUser(user("user1"));
+        user2 = userRepository.createUser(user("user2"));
+    }
+
+    @Test
+    void shouldSeedRankingFromLikes() {
+        likesRepository.addLike(film2.getId(), user1.getId());
+        likesRepository.addLike(film2.getId(), user2.getId());
+        likesRepository.addLike(film3.getId(), user1.getId());
+
+        leaderboard.rebuild();
+
+        assertThat(leaderboard.getTop(10))
+                .containsExactly(film2.getId(), film3.getId(), film1.getId());
+    }
+
+    @Test
+    void shouldReorderOnLikeChanges() {
+        leaderboard.rebuild();
+
+        leaderboard.addLike(film3.getId());
+        leaderboard.addLike(film3.getId());
+        leaderboard.addLike(film1.getId());
+        leaderboard.removeLike(film3.getId());
+        leaderboard.removeLike(film3.getId());
+
+        assertThat(leaderboard.getTop(2))
+                .containsExactly(film1.getId(), film2.getId());
+    }
+
+    @Test
+    void shouldRebuildWhenDriftedFromDatabase() {
+        leaderboard.rebuild();
+        likesRepository.addLike(film3.getId(), user1.getId());
+
+        assertThat(leaderboard.verify()).isFalse();
+        assertThat(leaderboard.verify()).isTrue();
+        assertThat(leaderboard.getTop(1)).isEqualTo(List.of(film3.getId()));
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileRebuilding() {
+        FilmLeaderboard racing = racingLeaderboard(film3.getId());
+
+        racing.rebuild();
+
+        assertThat(racing.getTop(1)).containsExactly(film3.getId());
+    }
+
+    @Test
+    void shouldSkipFilmsChangedWhileVerifying() {
+        FilmLeaderboard racing = racingLeaderboard(film3.getId());
+        racing.rebuild();
+        likesRepository.addLike(film2.getId(), user1.getId());
+        racing.addLike(film2.getId());
+
+        assertThat(racing.verify()).isTrue();
+        assertThat(racing.getTop(1)).containsExactly(film3.getId());
+    }
+
+    @Test
+    void shouldRankWithinPartitions() {
+        leaderboard.rebuild();
+        leaderboard.setAttributes(film1.getId(), 4, 2019);
+        leaderboard.setGenres(film1.getId(), List.of(1));
+        leaderboard.setGenres(film3.getId(), List.of(1, 2));
+        leaderboard.addLike(film3.getId());
+
+        assertThat(leaderboard.getTop(null, 10, 1, null, null))
+                .containsExactly(film3.getId(), film1.getId());
+        assertThat(leaderboard.getTop(null, 10, null, 1, 2022))
+                .containsExactly(film3.getId(), film2.getId());
+        assertThat(leaderboard.getTop(null, 10, 1, 4, 2019))
+                .containsExactly(film1.getId());
+        assertThat(leaderboard.getTop(null, 10, 2, 4, null))
+                .isEmpty();
+    }
+
+    private FilmLeaderboard racingLeaderboard(int filmId) {
+        FilmLeaderboard[] racing = new FilmLeaderboard[1];
+        racing[0] = new FilmLeaderboard(new JdbcTemplate(jdbc.getDataSource()) {
+            @Override
+            public <T> T query(String sql, ResultSetExtractor<T> extractor) {
+                T result = super.query(sql, extractor);
+                racing[0].addLike(filmId);
+                return result;
+            }
+        }, tracker);
+        return racing[0];
+    }
+}
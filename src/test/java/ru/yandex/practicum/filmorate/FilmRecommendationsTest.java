@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({LikeIndex.class,
+        FilmRecommendations.class})
+class FilmRecommendationsTest {
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final LikesRepository likesRepository;
+    private final LikeIndex likeIndex;
+    private final FilmRecommendations recommendations;
+
+    private final int[] films = new int[4];
+    private final int[] users = new int[3];
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < films.length; i++) {
+            films[i] = filmRepository.addFilm(film("Film" + i)).getId();
+        }
+        for (int i = 0; i < users.length; i++) {
+            users[i] = userRepository.createUser(user("user" + i)).getId();
+        }
+        recommendations.invalidateAll();
+    }
+
+    @Test
+    void shouldRecommendFilmsOfMostSimilarUsers() {
+        likesRepository.addLike(films[0], users[0]);
+        likesRepository.addLike(films[1], users[0]);
+        likesRepository.addLike(films[0], users[1]);
+        likesRepository.addLike(films[1], users[1]);
+        likesRepository.addLike(films[2], users[1]);
+        likesRepository.addLike(films[0], users[2]);
+        likesRepository.addLike(films[3], users[2]);
+        likesRepository.addLike(films[2], users[2]);
+
+        likeIndex.rebuild();
+
+        assertThat(likeIndex.getUsersWhoLiked(films[0])).containsExactly(users[0], users[1], users[2]);
+        assertThat(recommendations.recommend(users[0], 10)).containsExactly(films[2], films[3]);
+    }
+
+    @Test
+    void shouldFollowIncrementalLikeChanges() {
+        likeIndex.rebuild();
+        likeIndex.apply(new LikeChange(films[0], users[0], true));
+        likeIndex.apply(new LikeChange(films[0], users[1], true));
+        likeIndex.apply(new LikeChange(films[3], users[1], true));
+
+        assertThat(recommendations.recommend(users[0], 10)).containsExactly(films[3]);
+
+        likeIndex.apply(new LikeChange(films[3], users[1], false));
+        recommendations.invalidate(users[0]);
+
+        assertThat(recommendations.recommend(users[0], 10)).isEmpty();
+        assertThat(likeIndex.removeFilm(films[0])).containsExactly(users[0], users[1]);
+        assertThat(likeIndex.getFilmsLikedBy(users[0])).isEmpty();
+    }
+}
@@ -1,63 +1,43 @@
 package ru.yandex.practicum.filmorate;
 
 import lombok.RequiredArgsConstructor;
-import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
-import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
-import org.springframework.context.annotation.Import;
-import ru.yandex.practicum.filmorate.mapper.FilmRowMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.FilmRepository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
-import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.yandex.practicum.filmorate.TestData.film;
 
-
-@JdbcTest
-@AutoConfigureTestDatabase
+@StorageTest
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
-@Import({FilmRepository.class,
-        FilmRowMapper.class})
 class FilmRepositoryTest {
 
     private final FilmRepository filmRepository;
-    private static Film film1;
-    private static Film film2;
-    private static Film film3;
-
-    @BeforeAll
-    static void setUpFilms() {
-        film1 = Film.builder()
-                .name("Test Film1")
-                .description("Test description2")
-                .releaseDate(LocalDate.of(2022, 1, 1))
-                .duration(100)
-                .mpa(new Mpa(1, "G"))
+
+    private Film film1;
+    private Film film2;
+    private Film film3;
+
+    @BeforeEach
+    void setUpFilms() {
+        film1 = film("Test Film1").toBuilder()
                 .genres(Set.of(new Genre(1, "Комедия")))
                 .build();
-
-        film2 = Film.builder()
-                .name("Test Film2")
-                .description("Test description2")
-                .releaseDate(LocalDate.of(2022, 1, 1))
-                .duration(100)
+        film2 = film("Test Film2").toBuilder()
                 .mpa(new Mpa(2, "PG"))
                 .genres(Set.of(new Genre(2, "Драма")))
                 .build();
-
-        film3 = Film.builder()
-                .name("Test Film3")
-                .description("Test description3")
-                .releaseDate(LocalDate.of(2022, 1, 1))
-                .duration(100)
+        film3 = film("Test Film3").toBuilder()
                 .mpa(new Mpa(3, "PG-13"))
                 .genres(Set.of(new Genre(6, "Боевик")))
                 .build();
@@ -69,7 +49,7 @@ class FilmRepositoryTest {
         filmRepository.addFilm(film2);
         filmRepository.addFilm(film3);
 
-        assertThat(filmRepository.getFilms())
+        assertThat(filmRepository.getFilms(null, Integer.MAX_VALUE))
                 .isNotEmpty()
                 .hasSize(3);
     }
@@ -91,11 +71,50 @@ class FilmRepositoryTest {
         filmRepository.addFilm(film2);
         filmRepository.addFilm(film3);
 
-        assertThat(filmRepository.getFilms())
+        assertThat(filmRepository.getFilms(null, Integer.MAX_VALUE))
                 .isNotEmpty()
                 .hasSize(3);
     }
 
+    @Test
+    void shouldReturnFilmsByIdsInRequestedOrder() {
+        filmRepository.addFilm(film1);
+        filmRepository.addFilm(film2);
+        filmRepository.addFilm(film3);
+
+        assertThat(filmRepository.getFilmsByIds(List.of(film3.getId(), film1.getId())))
+                .extracting(Film::getId)
+                .containsExactly(film3.getId(), film1.getId());
+    }
+
+    @Test
+    void shouldPageFilmsAfterCursor() {
+        filmRepository.addFilm(film1);
+        filmRepository.addFilm(film2);
+        filmRepository.addFilm(film3);
+
+        assertThat(filmRepository.getFilms(null, 2))
+                .extracting(Film::getId)
+                .containsExactly(film1.getId(), film2.getId());
+        assertThat(filmRepository.getFilms(film2.getId(), 2))
+                .extracting(Film::getId)
+                .containsExactly(film3.getId());
+        assertThat(filmRepository.getFilms(film3.getId(), 2)).isEmpty();
+    }
+
+    @Test
+    void shouldStreamFilmsInIdOrder() {
+        filmRepository.addFilm(film1);
+        filmRepository.addFilm(film2);
+        filmRepository.addFilm(film3);
+        List<Integer> streamed = new ArrayList<>();
+
+        filmRepository.streamFilms(2, film -> streamed.add(film.getId()));
+
+        assertThat(streamed)
+                .containsExactly(film1.getId(), film2.getId(), film3.getId());
+    }
+
     @Test
     void shouldAddFilms() {
         filmRepository.addFilm(film1);
@@ -106,16 +125,26 @@ class FilmRepositoryTest {
                 .isNotNull();
     }
 
+    @Test
+    void shouldAddFilmsInBatch() {
+        List<Film> films = filmRepository.addFilms(new ArrayList<>(List.of(
+                film1.toBuilder().id(null).build(),
+                film2.toBuilder().id(null).build(),
+                film3.toBuilder().id(null).build())));
+
+        assertThat(films)
+                .extracting(Film::getId)
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+        assertThat(filmRepository.getFilms(null, Integer.MAX_VALUE))
+                .hasSize(3);
+    }
+
     @Test
     void shouldUpdateFilm() {
         filmRepository.addFilm(film1);
-        Film updatedFilm = Film.builder()
+        Film updatedFilm = film("Updated Film", "Updated description").toBuilder()
                 .id(film1.getId())
-                .name("Updated Film")
-                .description("Updated description")
-                .releaseDate(LocalDate.of(2022, 1, 1))
-                .duration(100)
-                .mpa(new Mpa(1, "G"))
                 .genres(Set.of(new Genre(1, "Комедия")))
                 .build();
 
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({LikeIndex.class,
+        FilmSearchIndex.class})
+class FilmSearchIndexTest {
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final LikesRepository likesRepository;
+    private final LikeIndex likeIndex;
+    private final FilmSearchIndex searchIndex;
+
+    private int terminator;
+    private int matrix;
+    private int runningMan;
+
+    @BeforeEach
+    void setUp() {
+        terminator = filmRepository.addFilm(film("Терминатор", "Фильм о роботе из будущего")).getId();
+        matrix = filmRepository.addFilm(film("Матрица", "Хакер узнаёт правду о мире роботов")).getId();
+        runningMan = filmRepository.addFilm(film("The Running Man", "A man runs for his life")).getId();
+        int user = userRepository.createUser(user("search")).getId();
+        likesRepository.addLike(matrix, user);
+        likeIndex.rebuild();
+        searchIndex.rebuild();
+    }
+
+    @Test
+    void shouldMatchInflectedRussianAndEnglishTerms() {
+        assertThat(searchIndex.search("роботы", 10)).containsExactly(matrix, terminator);
+        assertThat(searchIndex.search("узнает правду", 10)).containsExactly(matrix);
+        assertThat(searchIndex.search("running", 10)).containsExactly(runningMan);
+        assertThat(searchIndex.search("термин", 10)).containsExactly(terminator);
+        assertThat(searchIndex.search("робот космос", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldFollowUpdatesAndDeletes() {
+        searchIndex.put(matrix, "Матрица", "Перезагрузка");
+        searchIndex.remove(runningMan);
+
+        assertThat(searchIndex.search("робот", 10)).containsExactly(terminator);
+        assertThat(searchIndex.search("перезагрузка", 10)).containsExactly(matrix);
+        assertThat(searchIndex.search("running", 10)).isEmpty();
+    }
+}
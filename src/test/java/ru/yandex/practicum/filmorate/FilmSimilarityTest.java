@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({LikeIndex.class,
+        FilmSimilarity.class})
+class FilmSimilarityTest {
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final LikesRepository likesRepository;
+    private final LikeIndex likeIndex;
+    private final FilmSimilarity similarity;
+
+    private final int[] films = new int[4];
+    private final int[] users = new int[3];
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < films.length; i++) {
+            films[i] = filmRepository.addFilm(film("Film" + i)).getId();
+        }
+        for (int i = 0; i < users.length; i++) {
+            users[i] = userRepository.createUser(user("user" + i)).getId();
+        }
+    }
+
+    @Test
+    void shouldRankFilmsByCoLikesAfterRebuild() {
+        likesRepository.addLike(films[0], users[0]);
+        likesRepository.addLike(films[1], users[0]);
+        likesRepository.addLike(films[0], users[1]);
+        likesRepository.addLike(films[1], users[1]);
+        likesRepository.addLike(films[2], users[1]);
+        likesRepository.addLike(films[0], users[2]);
+        likesRepository.addLike(films[3], users[2]);
+
+        likeIndex.rebuild();
+        similarity.rebuild();
+
+        assertThat(similarity.getSimilar(films[0], 10)).containsExactly(films[1], films[2], films[3]);
+        assertThat(similarity.getSimilar(films[3], 10)).containsExactly(films[0]);
+    }
+
+    @Test
+    void shouldReloadLikesFromDatabaseOnScheduledRebuild() {
+        likeIndex.rebuild();
+        similarity.rebuild();
+        likesRepository.addLike(films[0], users[0]);
+        likesRepository.addLike(films[3], users[0]);
+
+        similarity.reload();
+
+        assertThat(similarity.getSimilar(films[0], 10)).containsExactly(films[3]);
+    }
+
+    @Test
+    void shouldUpdateCoLikesIncrementally() {
+        likeIndex.rebuild();
+        similarity.rebuild();
+        like(films[0], users[0], true);
+        like(films[1], users[0], true);
+        like(films[2], users[0], true);
+        like(films[0], users[1], true);
+        like(films[2], users[1], true);
+        like(films[1], users[0], false);
+
+        assertThat(similarity.getSimilar(films[0], 10)).containsExactly(films[2]);
+
+        similarity.removeFilm(films[2]);
+
+        assertThat(similarity.getSimilar(films[0], 10)).isEmpty();
+    }
+
+    @Test
+    void shouldCountOnlyUsersWithinLikeLimit() {
+        FilmSimilarity limited = new FilmSimilarity(likeIndex, 200, 2);
+        likeIndex.rebuild();
+        limited.rebuild();
+        limited.apply(new LikeChange(films[0], users[0], true));
+        limited.apply(new LikeChange(films[1], users[0], true));
+
+        assertThat(limited.getSimilar(films[0], 10)).containsExactly(films[1]);
+
+        limited.apply(new LikeChange(films[2], users[0], true));
+
+        assertThat(limited.getSimilar(films[0], 10)).isEmpty();
+
+        limited.apply(new LikeChange(films[0], users[1], true));
+        limited.apply(new LikeChange(films[2], users[1], true));
+        limited.apply(new LikeChange(films[1], users[0], false));
+        limited.apply(new LikeChange(films[0], users[2], true));
+        limited.apply(new LikeChange(films[1], users[2], true));
+
+        assertThat(limited.getSimilar(films[0], 10)).containsExactly(films[2], films[1]);
+        assertThat(limited.getSimilar(films[1], 10)).containsExactly(films[0]);
+
+        limited.rebuild();
+
+        assertThat(limited.getSimilar(films[0], 10)).containsExactly(films[2], films[1]);
+        assertThat(limited.getSimilar(films[1], 10)).containsExactly(films[0]);
+    }
+
+    private void like(int filmId, int userId, boolean liked) {
+        similarity.apply(new LikeChange(filmId, userId, liked));
+    }
+}
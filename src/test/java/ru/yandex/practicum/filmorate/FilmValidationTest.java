@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.exception.ErrorHandler;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import java.util.List;
+
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class FilmValidationTest {
+
+    private final FilmStorage filmStorage = mock(FilmStorage.class);
+    private final GenreRepository genreRepository = mock(GenreRepository.class);
+    private final MpaRepository mpaRepository = mock(MpaRepository.class);
+
+    private ValidatorFactory validatorFactory;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        when(genreRepository.getAllGenres()).thenReturn(List.of(new Genre(1, "Комедия")));
+        when(mpaRepository.getAllMpa()).thenReturn(List.of(new Mpa(1, "G")));
+        ReferenceDataCache referenceData = new ReferenceDataCache(genreRepository, mpaRepository,
+                new ObjectMapper());
+        referenceData.refresh();
+        clearInvocations(genreRepository, mpaRepository);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        EntityVersions versions = new EntityVersions();
+        FilmService filmService = new FilmService(filmStorage, mock(UserStorage.class), genreRepository,
+                mock(LikesRepository.class), mock(LikesWriteBuffer.class), mock(FilmLeaderboard.class),
+                mock(FilmRecommendations.class), mock(FilmSimilarity.class), referenceData,
+                validatorFactory.getValidator(), versions, mock(FilmSearchIndex.class), mock(FilmFilterIndex.class),
+                mock(TrendingFilms.class),
+                new ChangeTracker(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class)), 100);
+        mvc = MockMvcBuilders.standaloneSetup(new FilmController(filmService, null, versions, null))
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void shouldRejectUnknownMpaWithoutQueryingDatabase() throws Exception {
+        mvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(film("{\"id\":99}", "[]")))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(filmStorage, genreRepository, mpaRepository);
+    }
+
+    @Test
+    void shouldRejectUnknownGenreWithoutQueryingDatabase() throws Exception {
+        mvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(film("{\"id\":1}", "[{\"id\":1},{\"id\":99}]")))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(filmStorage, genreRepository, mpaRepository);
+    }
+
+    private static String film(String mpa, String genres) {
+        return "{\"name\":\"Film\",\"description\":\"Test description\",\"releaseDate\":\"2022-01-01\"," +
+                "\"duration\":100,\"mpa\":" + mpa + ",\"genres\":" + genres + "}";
+    }
+}
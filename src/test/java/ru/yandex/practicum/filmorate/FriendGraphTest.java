@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.storage.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.FriendshipRepository;
+import ru.yandex.practicum.filmorate.storage.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = "filmorate.friends.compact-threshold=2")
+@Import(FriendGraph.class)
+class FriendGraphTest {
+
+    private final UserRepository userRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final FriendGraph friendGraph;
+
+    private int user1;
+    private int user2;
+    private int user3;
+    private int user4;
+
+    @BeforeEach
+    void setUp() {
+        user1 = userRepository.createUser(user("user1")).getId();
+        user2 = userRepository.createUser(user("user2")).getId();
+        user3 = userRepository.createUser(user("user3")).getId();
+        user4 = userRepository.createUser(user("user4")).getId();
+    }
+
+    @Test
+    void shouldLoadSortedFriendListsFromDatabase() {
+        friendshipRepository.addFriend(user1, user4);
+        friendshipRepository.addFriend(user1, user2);
+        friendshipRepository.addFriend(user3, user2);
+
+        friendGraph.rebuild();
+
+        assertThat(friendGraph.getFriends(user1)).containsExactly(user2, user4);
+        assertThat(friendGraph.getFriends(user2)).isEmpty();
+        assertThat(friendGraph.getFriends(user1, user2, 10)).containsExactly(user4);
+    }
+
+    @Test
+    void shouldKeepListsUpToDateAcrossCompaction() {
+        friendGraph.rebuild();
+
+        assertThat(friendGraph.addFriend(user1, user3)).isTrue();
+        assertThat(friendGraph.addFriend(user1, user3)).isFalse();
+        friendGraph.addFriend(user2, user3);
+        friendGraph.addFriend(user1, user2);
+        friendGraph.addFriend(user4, user3);
+        assertThat(friendGraph.removeFriend(user1, user3)).isTrue();
+
+        assertThat(friendGraph.getFriends(user1)).containsExactly(user2);
+        assertThat(friendGraph.getFriends(user2)).containsExactly(user3);
+        assertThat(friendGraph.contains(user4, user3)).isTrue();
+    }
+
+    @Test
+    void shouldIntersectFriendListsOfSeveralUsers() {
+        friendGraph.rebuild();
+        friendGraph.addFriend(user1, user3);
+        friendGraph.addFriend(user1, user4);
+        friendGraph.addFriend(user2, user3);
+        friendGraph.addFriend(user2, user4);
+        friendGraph.addFriend(user4, user3);
+
+        assertThat(friendGraph.getCommonFriends(user1, user2)).containsExactly(user3, user4);
+        assertThat(friendGraph.getCommonFriends(user1, user2, user4)).containsExactly(user3);
+
+        friendGraph.removeUser(user3);
+
+        assertThat(friendGraph.getCommonFriends(user1, user2)).containsExactly(user4);
+        assertThat(friendGraph.getFriends(user4)).isEmpty();
+        assertThat(friendGraph.contains(user1, user3)).isFalse();
+        assertThat(friendGraph.getFriends(user3)).isEmpty();
+    }
+
+    @Test
+    void shouldNotListRemovedUsersAmongUsersWithFriends() {
+        friendshipRepository.addFriend(user1, user3);
+        friendshipRepository.addFriend(user2, user1);
+        friendshipRepository.addFriend(user4, user3);
+        friendGraph.rebuild();
+
+        friendGraph.removeUser(user3);
+
+        assertThat(friendGraph.getUsersWithFriends()).containsExactly(user2);
+    }
+
+    @Test
+    void shouldResyncWithFriendsTable() {
+        friendGraph.rebuild();
+        friendshipRepository.addFriend(user1, user2);
+
+        assertThat(friendGraph.verify()).isFalse();
+        assertThat(friendGraph.getFriends(user1)).containsExactly(user2);
+        assertThat(friendGraph.verify()).isTrue();
+    }
+}
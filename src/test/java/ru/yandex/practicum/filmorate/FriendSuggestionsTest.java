@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.storage.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.FriendSuggestions;
+import ru.yandex.practicum.filmorate.storage.IntCounter;
+import ru.yandex.practicum.filmorate.storage.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FriendGraph.class,
+        FriendSuggestions.class})
+class FriendSuggestionsTest {
+
+    private final UserRepository userRepository;
+    private final FriendGraph friendGraph;
+    private final FriendSuggestions friendSuggestions;
+
+    private final int[] users = new int[5];
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < users.length; i++) {
+            users[i] = userRepository.createUser(user("user" + i)).getId();
+        }
+        friendGraph.rebuild();
+        friendSuggestions.invalidateAll();
+    }
+
+    @Test
+    void shouldRankNonFriendsByMutualFriends() {
+        friendGraph.addFriend(users[0], users[1]);
+        friendGraph.addFriend(users[0], users[2]);
+        friendGraph.addFriend(users[1], users[3]);
+        friendGraph.addFriend(users[2], users[3]);
+        friendGraph.addFriend(users[2], users[4]);
+        friendGraph.addFriend(users[1], users[2]);
+
+        assertThat(friendSuggestions.suggest(users[0], 10)).containsExactly(users[3], users[4]);
+        assertThat(friendSuggestions.suggest(users[0], 1)).containsExactly(users[3]);
+    }
+
+    @Test
+    void shouldDropCachedSuggestionsWhenFriendshipsChange() {
+        friendGraph.addFriend(users[0], users[1]);
+        friendGraph.addFriend(users[1], users[2]);
+        assertThat(friendSuggestions.suggest(users[0], 10)).containsExactly(users[2]);
+
+        friendGraph.addFriend(users[1], users[3]);
+        friendSuggestions.invalidate(users[1]);
+
+        assertThat(friendSuggestions.suggest(users[0], 10)).containsExactly(users[2], users[3]);
+    }
+
+    @Test
+    void shouldKeepTopCountsInOrder() {
+        IntCounter counter = new IntCounter(2);
+        for (int key = 1; key <= 100; key++) {
+            counter.add(key, key % 10);
+        }
+
+        assertThat(counter.topKeys(3)).containsExactly(9, 19, 29);
+        assertThat(counter.get(55)).isEqualTo(5);
+        assertThat(counter.size()).isEqualTo(100);
+    }
+}
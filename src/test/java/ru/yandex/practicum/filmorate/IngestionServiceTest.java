@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.yandex.practicum.filmorate.model.IngestReport;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.IngestionService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmRepository;
+import ru.yandex.practicum.filmorate.storage.FriendshipRepository;
+import ru.yandex.practicum.filmorate.storage.LikesRepository;
+import ru.yandex.practicum.filmorate.storage.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class IngestionServiceTest {
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final LikesRepository likesRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final ObjectMapper objectMapper;
+
+    private IngestionService ingestion;
+    private int film0;
+    private int film1;
+    private int user0;
+    private int user1;
+
+    @BeforeEach
+    void setUp() {
+        FilmService filmService = mock(FilmService.class);
+        when(filmService.addLikes(anyList()))
+                .thenAnswer(invocation -> likesRepository.applyChanges(invocation.getArgument(0)));
+        UserService userService = mock(UserService.class);
+        when(userService.addFriends(anyList()))
+                .thenAnswer(invocation -> friendshipRepository.addFriends(invocation.getArgument(0)));
+        ingestion = new IngestionService(filmService, userService, filmRepository, userRepository, objectMapper, 3);
+        film0 = filmRepository.addFilm(film("Film0")).getId();
+        film1 = filmRepository.addFilm(film("Film1")).getId();
+        user0 = userRepository.createUser(user("user0")).getId();
+        user1 = userRepository.createUser(user("user1")).getId();
+    }
+
+    @Test
+    void shouldCountCsvLikesAcrossChunks() throws IOException {
+        String csv = String.join("\n",
+                "userId,filmId",
+                user0 + "," + film0,
+                user0 + ", " + film0,
+                user1 + ";" + film0,
+                "",
+                "not a like",
+                user1 + "," + Integer.MAX_VALUE,
+                user0 + "," + film0,
+                user1 + " ; " + film1,
+                user0 + "," + film1 + "," + film0);
+
+        IngestReport report = ingestion.ingestLikes(body(csv), false);
+
+        assertThat(report.read()).isEqualTo(8);
+        assertThat(report.inserted()).isEqualTo(3);
+        assertThat(report.duplicates()).isEqualTo(2);
+        assertThat(report.invalid()).isEqualTo(1);
+        assertThat(report.malformed()).isEqualTo(2);
+        assertThat(likesRepository.getFilmIdsLikedBy(user1)).containsExactlyInAnyOrder(film0, film1);
+    }
+
+    @Test
+    void shouldTreatFirstCsvLineAsDataWhenItParses() throws IOException {
+        IngestReport report = ingestion.ingestLikes(body(user0 + "," + film0 + "\n" + user1 + "," + film1), false);
+
+        assertThat(report.read()).isEqualTo(2);
+        assertThat(report.inserted()).isEqualTo(2);
+        assertThat(report.malformed()).isZero();
+    }
+
+    @Test
+    void shouldRejectSelfAndUnknownFriendshipsFromNdjson() throws IOException {
+        String ndjson = String.join("\n",
+                "{\"userId\":" + user0 + ",\"friendId\":" + user1 + "}",
+                "{\"userId\":" + user0 + ",\"friendId\":" + user0 + "}",
+                "{\"userId\":" + user1 + ",\"friendId\":-5}",
+                "{\"userId\":\"x\",\"friendId\":" + user1 + "}",
+                "{\"userId\":" + user1 + "}",
+                "not json");
+
+        IngestReport report = ingestion.ingestFriends(body(ndjson), true);
+
+        assertThat(report.read()).isEqualTo(6);
+        assertThat(report.inserted()).isEqualTo(1);
+        assertThat(report.invalid()).isEqualTo(2);
+        assertThat(report.malformed()).isEqualTo(3);
+        assertThat(report.duplicates()).isZero();
+        assertThat(friendshipRepository.getUserIdsBefriending(user1)).containsExactly(user0);
+        assertThat(friendshipRepository.getUserIdsBefriending(user0)).isEmpty();
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,143 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeTracker;
+import ru.yandex.practicum.filmorate.storage.FilmRepository;
+import ru.yandex.practicum.filmorate.storage.LikeChange;
+import ru.yandex.practicum.filmorate.storage.LikesRepository;
+import ru.yandex.practicum.filmorate.storage.LikesWriteBuffer;
+import ru.yandex.practicum.filmorate.storage.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@TestPropertySource(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.capacity=2"})
+@Import(LikesWriteBuffer.class)
+class LikesWriteBufferTest {
+    private static final String COUNT_LIKES = "SELECT COUNT(*) FROM FILMS_LIKES";
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final LikesRepository likesRepository;
+    private final LikesWriteBuffer likesBuffer;
+    private final ChangeTracker tracker;
+    private final JdbcTemplate jdbc;
+
+    private final List<LikeChange> flushed = new ArrayList<>();
+    private Film film;
+    private User user1;
+    private User user2;
+    private User user3;
+
+    @BeforeEach
+    void setUp() {
+        film = filmRepository.addFilm(film("Film"));
+        user1 = userRepository.createUser(user("user1"));
+        user2 = userRepository.createUser(user("user2"));
+        user3 = userRepository.createUser(user("user3"));
+        likesBuffer.onFlush(flushed::addAll);
+    }
+
+    @Test
+    void shouldCoalesceLikeFollowedByUnlike() {
+        likesBuffer.addLike(film.getId(), user1.getId());
+        likesBuffer.removeLike(film.getId(), user1.getId());
+
+        assertThat(likesBuffer.pendingCount()).isEqualTo(1);
+
+        likesBuffer.flush();
+
+        assertThat(jdbc.queryForObject(COUNT_LIKES, Integer.class)).isZero();
+        assertThat(flushed).isEmpty();
+    }
+
+    @Test
+    void shouldWriteBufferedLikesOnFlush() {
+        likesBuffer.addLike(film.getId(), user1.getId());
+        likesBuffer.addLike(film.getId(), user2.getId());
+
+        assertThat(jdbc.queryForObject(COUNT_LIKES, Integer.class)).isZero();
+
+        likesBuffer.flush();
+
+        assertThat(jdbc.queryForObject(COUNT_LIKES, Integer.class)).isEqualTo(2);
+        assertThat(flushed).hasSize(2);
+    }
+
+    @Test
+    void shouldFlushWhenFull() {
+        likesBuffer.addLike(film.getId(), user1.getId());
+        likesBuffer.addLike(film.getId(), user2.getId());
+        likesBuffer.addLike(film.getId(), user3.getId());
+
+        assertThat(jdbc.queryForObject(COUNT_LIKES, Integer.class)).isEqualTo(2);
+        assertThat(likesBuffer.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipLikesThatAlreadyExist() {
+        likesRepository.addLike(film.getId(), user1.getId());
+        likesBuffer.addLike(film.getId(), user1.getId());
+
+        likesBuffer.flush();
+
+        assertThat(jdbc.queryForObject(COUNT_LIKES, Integer.class)).isEqualTo(1);
+        assertThat(flushed).isEmpty();
+    }
+
+    @Test
+    void shouldRetryDrainAndGiveUpAfterBoundedAttempts() {
+        LikesRepository recovering = mock(LikesRepository.class);
+        when(recovering.applyChanges(anyList()))
+                .thenThrow(new IllegalStateException("primary unavailable"))
+                .thenReturn(List.of());
+        LikesWriteBuffer buffer = new LikesWriteBuffer(recovering, tracker, true, 10);
+        buffer.addLike(film.getId(), user1.getId());
+
+        buffer.drain();
+
+        assertThat(buffer.pendingCount()).isZero();
+        verify(recovering, times(2)).applyChanges(anyList());
+
+        LikesRepository failing = mock(LikesRepository.class);
+        when(failing.applyChanges(anyList())).thenThrow(new IllegalStateException("primary unavailable"));
+        buffer = new LikesWriteBuffer(failing, tracker, true, 10);
+        buffer.addLike(film.getId(), user1.getId());
+
+        buffer.drain();
+
+        assertThat(buffer.pendingCount()).isEqualTo(1);
+        verify(failing, times(5)).applyChanges(anyList());
+    }
+
+    @Test
+    void shouldCheckLikeTargetsWithoutLoadingThem() {
+        likesRepository.requireFilmAndUser(film.getId(), user1.getId());
+
+        assertThrows(NotFoundException.class, () -> likesRepository.requireFilmAndUser(film.getId(), -1));
+        assertThrows(NotFoundException.class, () -> likesRepository.requireFilmAndUser(-1, user1.getId()));
+    }
+}
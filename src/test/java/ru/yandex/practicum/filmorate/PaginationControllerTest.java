@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.controller.ResponseBodyCache;
+import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.exception.ErrorHandler;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ParallelLookups;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(FriendGraph.class)
+class PaginationControllerTest {
+    private static final int MAX_PAGE_SIZE = 2;
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final GenreRepository genreRepository;
+    private final LikesRepository likesRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final ReferenceDataCache referenceData;
+    private final FriendGraph friendGraph;
+    private final ChangeTracker tracker;
+    private final ObjectMapper objectMapper;
+
+    private MockMvc mvc;
+    private UserService userService;
+    private final int[] films = new int[3];
+    private final int[] users = new int[4];
+
+    @BeforeEach
+    void setUp() {
+        EntityVersions versions = new EntityVersions();
+        ParallelLookups lookups = new ParallelLookups(false);
+        FilmService filmService = new FilmService(filmRepository, userRepository, genreRepository,
+                likesRepository, mock(LikesWriteBuffer.class), mock(FilmLeaderboard.class),
+                mock(FilmRecommendations.class), mock(FilmSimilarity.class), referenceData, mock(Validator.class),
+                versions, mock(FilmSearchIndex.class), mock(FilmFilterIndex.class), mock(TrendingFilms.class),
+                tracker, MAX_PAGE_SIZE);
+        userService = new UserService(userRepository, friendshipRepository, friendGraph,
+                mock(FriendSuggestions.class), likesRepository, mock(FilmLeaderboard.class),
+                mock(TrendingFilms.class), mock(FilmRecommendations.class),
+                mock(FilmSimilarity.class), lookups, versions, tracker, MAX_PAGE_SIZE);
+        ResponseBodyCache responseCache = new ResponseBodyCache(objectMapper, new SimpleMeterRegistry(),
+                false, 10, 1 << 20, 1024);
+        mvc = MockMvcBuilders.standaloneSetup(
+                        new FilmController(filmService, null, versions, responseCache),
+                        new UserController(userService, filmService, null, versions))
+                .setControllerAdvice(new ErrorHandler())
+                .addPlaceholderValue("filmorate.page.default-size", "100")
+                .build();
+        for (int i = 0; i < films.length; i++) {
+            films[i] = filmRepository.addFilm(film("Film" + i)).getId();
+        }
+        for (int i = 0; i < users.length; i++) {
+            users[i] = userRepository.createUser(user("user" + i)).getId();
+        }
+        friendGraph.rebuild();
+    }
+
+    @Test
+    void shouldContinueFilmPagesFromCursor() throws Exception {
+        mvc.perform(get("/films").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(NEXT_CURSOR, Integer.toString(films[1])))
+                .andExpect(jsonPath("$[*].id", contains(films[0], films[1])));
+        mvc.perform(get("/films").param("after", Integer.toString(films[1])).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(NEXT_CURSOR))
+                .andExpect(jsonPath("$[*].id", contains(films[2])));
+    }
+
+    @Test
+    void shouldClampLimitToMaxPageSize() throws Exception {
+        mvc.perform(get("/films"))
+                .andExpect(jsonPath("$.length()").value(MAX_PAGE_SIZE))
+                .andExpect(header().string(NEXT_CURSOR, Integer.toString(films[1])));
+        mvc.perform(get("/users").param("limit", "1000"))
+                .andExpect(jsonPath("$[*].id", contains(users[0], users[1])))
+                .andExpect(header().string(NEXT_CURSOR, Integer.toString(users[1])));
+        mvc.perform(get("/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldContinueUserAndFriendPagesFromCursor() throws Exception {
+        mvc.perform(get("/users").param("after", Integer.toString(users[1])))
+                .andExpect(header().string(NEXT_CURSOR, Integer.toString(users[3])))
+                .andExpect(jsonPath("$[*].id", contains(users[2], users[3])));
+        mvc.perform(get("/users").param("after", Integer.toString(users[3])))
+                .andExpect(header().doesNotExist(NEXT_CURSOR))
+                .andExpect(jsonPath("$").isEmpty());
+
+        userService.addFriend(users[0], users[3]);
+        userService.addFriend(users[0], users[1]);
+        userService.addFriend(users[0], users[2]);
+
+        mvc.perform(get("/users/{id}/friends", users[0]))
+                .andExpect(header().string(NEXT_CURSOR, Integer.toString(users[2])))
+                .andExpect(jsonPath("$[*].id", contains(users[1], users[2])));
+        mvc.perform(get("/users/{id}/friends", users[0]).param("after", Integer.toString(users[2])))
+                .andExpect(header().doesNotExist(NEXT_CURSOR))
+                .andExpect(jsonPath("$[*].id", contains(users[3])));
+    }
+}
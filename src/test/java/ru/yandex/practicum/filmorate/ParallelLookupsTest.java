@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.service.ParallelLookups;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelLookupsTest {
+
+    private final ParallelLookups lookups = new ParallelLookups(true);
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        lookups.shutdown();
+    }
+
+    @Test
+    void shouldRunLookupsOnVirtualThreadsOutsideTransaction() {
+        Queue<Thread> threads = new ConcurrentLinkedQueue<>();
+
+        lookups.runAll(() -> threads.add(Thread.currentThread()), () -> threads.add(Thread.currentThread()));
+
+        assertThat(threads).hasSize(2).allMatch(Thread::isVirtual);
+    }
+
+    @Test
+    void shouldRunLookupsInlineInsideTransaction() {
+        Queue<Thread> threads = new ConcurrentLinkedQueue<>();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        lookups.runAll(() -> threads.add(Thread.currentThread()), () -> threads.add(Thread.currentThread()));
+
+        assertThat(threads).containsExactly(Thread.currentThread(), Thread.currentThread());
+    }
+
+    @Test
+    void shouldRethrowNotFoundFromFailedLookup() {
+        NotFoundException e = assertThrows(NotFoundException.class, () -> lookups.runAll(
+                () -> {
+                },
+                () -> {
+                    throw new NotFoundException("User with id 42 was not found");
+                }));
+
+        assertThat(e.getMessage()).isEqualTo("User with id 42 was not found");
+    }
+
+    @Test
+    void shouldWrapErrorsThatAreNotRuntimeExceptions() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> lookups.runAll(
+                () -> {
+                },
+                () -> {
+                    throw new AssertionError("lookup failed");
+                }));
+
+        assertThat(e.getCause()).isInstanceOf(AssertionError.class);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.QueryMetrics;
+import ru.yandex.practicum.filmorate.storage.UserRepository;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({UserRepository.class,
+        UserRowMapper.class,
+        QueryMetrics.class,
+        SimpleMeterRegistry.class})
+class QueryMetricsTest {
+
+    private final UserRepository userRepository;
+    private final MeterRegistry registry;
+
+    @Test
+    void shouldTimeQueriesByConstantName() {
+        long inserts = successCount("UserRepository.INSERT_QUERY");
+        long lookups = successCount("UserRepository.QUERY_FOR_USER_BY_ID");
+
+        User user = userRepository.createUser(User.builder()
+                .email("metrics@example.com")
+                .login("metrics")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+        userRepository.getUserById(user.getId());
+        userRepository.getUserById(user.getId());
+
+        assertThat(successCount("UserRepository.INSERT_QUERY")).isEqualTo(inserts + 1);
+        assertThat(successCount("UserRepository.QUERY_FOR_USER_BY_ID")).isEqualTo(lookups + 2);
+    }
+
+    @Test
+    void shouldRecordRowCountsForEmptyResults() {
+        assertThrows(NotFoundException.class, () -> userRepository.getUserById(-1));
+        DistributionSummary rows = registry.get("filmorate.repository.rows")
+                .tags("query", "UserRepository.QUERY_FOR_USER_BY_ID")
+                .summary();
+        long count = rows.count();
+        double total = rows.totalAmount();
+
+        assertThrows(NotFoundException.class, () -> userRepository.getUserById(-1));
+
+        assertThat(rows.count()).isEqualTo(count + 1);
+        assertThat(rows.totalAmount()).isEqualTo(total);
+    }
+
+    private long successCount(String query) {
+        Timer timer = registry.find("filmorate.repository.query")
+                .tags("query", query, "outcome", "success")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
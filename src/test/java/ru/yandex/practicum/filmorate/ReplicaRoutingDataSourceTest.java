@@ -0,0 +1,173 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.yandex.practicum.filmorate.controller.ResponseBodyCache;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.storage.ReplicaRoutingDataSource;
+import ru.yandex.practicum.filmorate.storage.ReplicaSync;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2();
+        replica = h2();
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica));
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        new ReplicaSync(routingDataSource).initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearRouting();
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+    }
+
+    @Test
+    void shouldSendReadOnlyTransactionsToReplica() {
+        insertUser("primary-only");
+
+        assertThat(countUsers(readWrite)).isEqualTo(1);
+        assertThat(countUsers(readOnly)).isZero();
+    }
+
+    @Test
+    void shouldReadFromPrimaryWhenPrimaryIsRequired() {
+        insertUser("sticky");
+
+        ReplicaRoutingDataSource.requirePrimary(true);
+
+        assertThat(countUsers(readOnly)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTrackReadsServedByReplica() {
+        countUsers(readWrite);
+
+        assertThat(ReplicaRoutingDataSource.isReplicaRead()).isFalse();
+
+        ReplicaRoutingDataSource.requirePrimary(true);
+        countUsers(readOnly);
+
+        assertThat(ReplicaRoutingDataSource.isReplicaRead()).isFalse();
+
+        ReplicaRoutingDataSource.requirePrimary(false);
+        countUsers(readOnly);
+
+        assertThat(ReplicaRoutingDataSource.isReplicaRead()).isTrue();
+
+        ReplicaRoutingDataSource.clearReplicaRead();
+
+        assertThat(ReplicaRoutingDataSource.isReplicaRead()).isFalse();
+    }
+
+    @Test
+    void shouldCacheResponsesOnlyWhenReadFromPrimary() {
+        ResponseBodyCache cache = new ResponseBodyCache(new ObjectMapper(), new SimpleMeterRegistry(),
+                true, 10, 1 << 20, 1024);
+        Supplier<Page<?>> loader = () -> new Page<>(List.of(countUsers(readOnly)), null);
+        insertUser("not-yet-replicated");
+        ReplicaRoutingDataSource.requirePrimary(false);
+        ServletWebRequest replicaRequest = request();
+
+        ResponseEntity<byte[]> fromReplica = cache.respond(replicaRequest, "users", "\"u-1\"", loader);
+
+        assertThat(new String(fromReplica.getBody())).isEqualTo("[0]");
+        assertThat(replicaRequest.getResponse().getHeader(HttpHeaders.ETAG)).isNull();
+
+        ServletWebRequest primaryRequest = request();
+        ReplicaRoutingDataSource.requirePrimary(true);
+        ResponseEntity<byte[]> fromPrimary = cache.respond(primaryRequest, "users", "\"u-1\"", loader);
+        ReplicaRoutingDataSource.requirePrimary(false);
+
+        assertThat(new String(fromPrimary.getBody())).isEqualTo("[1]");
+        assertThat(primaryRequest.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo("\"u-1\"");
+        assertThat(new String(cache.respond(request(), "users", "\"u-1\"", loader).getBody())).isEqualTo("[1]");
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWithoutLoadingWhenReplicaReadsAreNotAllowed() {
+        ResponseBodyCache cache = new ResponseBodyCache(new ObjectMapper(), new SimpleMeterRegistry(),
+                true, 10, 1 << 20, 1024);
+        MockHttpServletRequest conditional = new MockHttpServletRequest("GET", "/users");
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"u-1\"");
+        ServletWebRequest request = new ServletWebRequest(conditional, new MockHttpServletResponse());
+
+        ResponseEntity<byte[]> response = cache.respond(request, "users", "\"u-1\"", () -> {
+            throw new AssertionError("loaded");
+        });
+
+        assertThat(response).isNull();
+        assertThat(request.getResponse().getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void shouldCopyPrimaryRowsToReplica() {
+        insertUser("replicated");
+        jdbc.update("INSERT INTO FILMS (FILM_NAME, DESCRIPTION, RELEASE_DATE, DURATION, MPA_ID) " +
+                "VALUES ('Film', 'Description', DATE '2000-01-01', 100, 1)");
+        jdbc.update("INSERT INTO FILMS_LIKES (FILM_ID, USER_ID) SELECT MAX(FILM_ID), MAX(USER_ID) FROM FILMS, USERS");
+
+        new ReplicaSync(routingDataSource).sync();
+
+        assertThat(countUsers(readOnly)).isEqualTo(1);
+        assertThat(readOnly.execute(status ->
+                jdbc.queryForObject("SELECT COUNT(*) FROM FILMS_LIKES", Integer.class))).isEqualTo(1);
+    }
+
+    private void insertUser(String login) {
+        jdbc.update("INSERT INTO USERS (EMAIL, LOGIN, BIRTHDAY) VALUES (?, ?, DATE '1990-01-01')",
+                login + "@example.com", login);
+    }
+
+    private static ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/users"), new MockHttpServletResponse());
+    }
+
+    private Integer countUsers(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbc.queryForObject("SELECT COUNT(*) FROM USERS", Integer.class));
+    }
+
+    private static DataSource h2() {
+        DataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new JdbcTemplate(dataSource).execute("RUNSCRIPT FROM 'classpath:schema.sql'");
+        new JdbcTemplate(dataSource).execute("RUNSCRIPT FROM 'classpath:data.sql'");
+        return dataSource;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.yandex.practicum.filmorate.controller.ResponseBodyCache;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseBodyCacheTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final ResponseBodyCache cache = new ResponseBodyCache(new ObjectMapper(), registry, true, 10, 1 << 20, 16);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void shouldServeCachedBodyUntilTagChanges() {
+        ResponseEntity<byte[]> first = cache.respond(request(null), "films", "\"a-1\"", this::load);
+        ResponseEntity<byte[]> second = cache.respond(request(null), "films", "\"a-1\"", this::load);
+        cache.respond(request(null), "films", "\"a-2\"", this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        assertThat(second.getHeaders().getFirst("X-Next-Cursor")).isEqualTo("7");
+        assertThat(registry.get("filmorate.response.cache.requests").tag("result", "hit").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldServePrecompressedBodyAndHonourIfNoneMatch() throws IOException {
+        ResponseEntity<byte[]> gzipped = cache.respond(request(null, "gzip, deflate"), "films", "\"a-1\"",
+                this::load);
+
+        assertThat(gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertThat(new String(in.readAllBytes())).startsWith("[\"film-0\"");
+        }
+        assertThat(cache.respond(request("\"a-1-gzip\"", "gzip"), "films", "\"a-1\"", this::load)).isNull();
+        assertThat(cache.respond(request(null, "gzip;q=0"), "films", "\"a-1\"", this::load)
+                .getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(loads).hasValue(1);
+    }
+
+    private Page<?> load() {
+        loads.incrementAndGet();
+        return new Page<>(Collections.nCopies(20, "film-0"), 7);
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        return request(ifNoneMatch, null);
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/films");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(StatsReconciler.class)
+class StatsReconcilerTest {
+    private static final int WRITERS = 8;
+    private static final int TOGGLES = 200;
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final LikesRepository likesRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final StatsReconciler statsReconciler;
+    private final JdbcTemplate jdbc;
+
+    @Test
+    void shouldKeepCountersInStepWithLikesAndFriends() {
+        Film first = filmRepository.addFilm(film("First"));
+        Film second = filmRepository.addFilm(film("Second"));
+        User alice = userRepository.createUser(user("alice"));
+        User bob = userRepository.createUser(user("bob"));
+
+        likesRepository.addLike(second.getId(), alice.getId());
+        likesRepository.addLike(second.getId(), bob.getId());
+        likesRepository.addLike(first.getId(), alice.getId());
+        likesRepository.deleteLike(first.getId(), alice.getId());
+        friendshipRepository.addFriend(alice.getId(), bob.getId());
+
+        assertThat(filmRepository.getFilmById(second.getId()).getLikesCount()).isEqualTo(2);
+        assertThat(statsReconciler.fold()).isPositive();
+        assertThat(filmRepository.getFilmsByIds(List.of(second.getId(), first.getId())))
+                .extracting(Film::getId, Film::getLikesCount)
+                .containsExactly(tuple(second.getId(), 2),
+                        tuple(first.getId(), 0));
+        assertThat(userRepository.getUserById(alice.getId()).getFriendsCount()).isEqualTo(1);
+
+        userRepository.deleteUser(bob.getId());
+
+        assertThat(filmRepository.getFilmById(second.getId()).getLikesCount()).isEqualTo(1);
+        assertThat(statsReconciler.reconcile()).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void shouldKeepShardsAndFoldedCountInStepWithConcurrentWriters() throws InterruptedException {
+        Film film = filmRepository.addFilm(film("Contended"));
+        List<User> users = IntStream.range(0, WRITERS)
+                .mapToObj(i -> userRepository.createUser(user("writer" + i)))
+                .toList();
+        try {
+            List<Thread> writers = new ArrayList<>();
+            for (User user : users) {
+                writers.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < TOGGLES; i++) {
+                        likesRepository.addLike(film.getId(), user.getId());
+                        likesRepository.deleteLike(film.getId(), user.getId());
+                    }
+                    if (user.getId() % 2 == 0) {
+                        likesRepository.addLike(film.getId(), user.getId());
+                    }
+                }));
+            }
+            AtomicBoolean writing = new AtomicBoolean(true);
+            Thread folder = Thread.ofPlatform().start(() -> {
+                while (writing.get()) {
+                    statsReconciler.fold();
+                }
+            });
+            while (writers.stream().anyMatch(Thread::isAlive)) {
+                statsReconciler.reconcile();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            writing.set(false);
+            folder.join();
+
+            Integer folded = jdbc.queryForObject("SELECT LIKES_COUNT FROM FILM_STATS WHERE FILM_ID = ?",
+                    Integer.class, film.getId());
+            Integer pending = jdbc.queryForObject("SELECT COALESCE(SUM(LIKES_DELTA), 0) FROM FILM_STATS_SHARDS " +
+                    "WHERE FILM_ID = ?", Integer.class, film.getId());
+            Integer likes = jdbc.queryForObject("SELECT COUNT(*) FROM FILMS_LIKES WHERE FILM_ID = ?",
+                    Integer.class, film.getId());
+            assertThat(folded + pending).isEqualTo(likes);
+        } finally {
+            filmRepository.deleteFilm(film.getId());
+            users.forEach(user -> userRepository.deleteUser(user.getId()));
+        }
+    }
+
+    @Test
+    void shouldRepairDriftedCounters() {
+        Film film = filmRepository.addFilm(film("Drifted"));
+        User user = userRepository.createUser(user("carol"));
+        likesRepository.addLike(film.getId(), user.getId());
+        jdbc.update("UPDATE FILM_STATS SET LIKES_COUNT = 42 WHERE FILM_ID = ?", film.getId());
+
+        assertThat(statsReconciler.reconcile()).isPositive();
+        assertThat(filmRepository.getFilmsByIds(List.of(film.getId())))
+                .extracting(Film::getLikesCount)
+                .containsExactly(1);
+    }
+}
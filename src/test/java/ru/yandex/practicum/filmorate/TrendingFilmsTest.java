@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(TrendingFilms.class)
+class TrendingFilmsTest {
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final TrendingFilms trending;
+    private final ChangeTracker tracker;
+    private final JdbcTemplate jdbc;
+
+    @Test
+    void shouldPreferRecentLikesWithinWindow() {
+        long now = System.currentTimeMillis();
+        int classic = filmRepository.addFilm(film("Classic")).getId();
+        int fresh = filmRepository.addFilm(film("Fresh")).getId();
+        int old = filmRepository.addFilm(film("Old")).getId();
+        for (int i = 0; i < 3; i++) {
+            int userId = userRepository.createUser(user("user" + i)).getId();
+            like(classic, userId, now - Duration.ofHours(20).toMillis());
+            if (i < 2) {
+                like(fresh, userId, now - Duration.ofMinutes(30).toMillis());
+            }
+            like(old, userId, now - Duration.ofDays(3).toMillis());
+        }
+
+        trending.rebuild();
+
+        assertThat(trending.getTrending(Duration.ofHours(24), 10, now)).containsExactly(fresh, classic);
+        assertThat(trending.getTrending(Duration.ofHours(1), 10, now)).containsExactly(fresh);
+        assertThat(trending.getTrending(Duration.ofDays(7), 10, now)).containsExactly(classic, fresh, old);
+
+        trending.removeLike(fresh, now);
+        trending.removeLike(fresh, now);
+        trending.addLike(old, now);
+
+        assertThat(trending.getTrending(Duration.ofHours(24), 10, now)).containsExactly(old, classic);
+    }
+
+    @Test
+    void shouldKeepChangesMadeWhileRebuilding() {
+        long now = System.currentTimeMillis();
+        int loaded = filmRepository.addFilm(film("Loaded")).getId();
+        int racing = filmRepository.addFilm(film("Racing")).getId();
+        like(loaded, userRepository.createUser(user("user")).getId(), now - Duration.ofHours(2).toMillis());
+        TrendingFilms[] rebuilding = new TrendingFilms[1];
+        rebuilding[0] = new TrendingFilms(new JdbcTemplate(jdbc.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler handler, Object... args) {
+                super.query(sql, handler, args);
+                rebuilding[0].addLike(racing, now);
+            }
+        }, tracker);
+
+        rebuilding[0].rebuild();
+
+        assertThat(rebuilding[0].getTrending(Duration.ofHours(24), 10, now)).containsExactly(racing, loaded);
+    }
+
+    @Test
+    void shouldNotReplayChangesAlreadyInTheSnapshot() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        int popular = filmRepository.addFilm(film("Popular")).getId();
+        int racing = filmRepository.addFilm(film("Racing")).getId();
+        for (int i = 0; i < 2; i++) {
+            like(popular, userRepository.createUser(user("user" + i)).getId(), now - Duration.ofHours(3).toMillis());
+        }
+        like(racing, userRepository.createUser(user("racer")).getId(), now);
+        CountDownLatch started = new CountDownLatch(1);
+        Thread writer = new Thread(() -> tracker.run(() -> {
+            started.countDown();
+            sleep(200);
+            trending.addLike(racing, now);
+        }));
+        writer.start();
+        started.await();
+
+        trending.rebuild();
+        writer.join();
+
+        assertThat(trending.getTrending(Duration.ofHours(24), 10, now)).containsExactly(popular, racing);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void like(int filmId, int userId, long likedAt) {
+        jdbc.update("INSERT INTO FILMS_LIKES (FILM_ID, USER_ID, LIKED_AT) VALUES (?, ?, ?)",
+                filmId, userId, new Timestamp(likedAt));
+    }
+}
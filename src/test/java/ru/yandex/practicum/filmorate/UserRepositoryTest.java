@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
 import ru.yandex.practicum.filmorate.mapper.UserRowMapper;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.FriendshipRepository;
@@ -14,7 +15,6 @@ import ru.yandex.practicum.filmorate.storage.UserRepository;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 
 import java.time.LocalDate;
-import java.util.Collection;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -148,15 +148,10 @@ class UserRepositoryTest {
 
         friendshipRepository.addFriend(user1.getId(), user3.getId());
 
-        Collection<User> users = friendshipRepository.getAllFriends(user1.getId());
-
-        assertThat(users)
-                .contains(userRepository.getUserById(user3.getId()));
-
-        users = friendshipRepository.getAllFriends(user3.getId());
-
-        assertThat(users)
-                .doesNotContain(userRepository.getUserById(user1.getId()));
+        assertThat(friendshipRepository.getUserIdsBefriending(user3.getId()))
+                .contains(user1.getId());
+        assertThat(friendshipRepository.getUserIdsBefriending(user1.getId()))
+                .doesNotContain(user3.getId());
     }
 
     @Test
@@ -169,27 +164,59 @@ class UserRepositoryTest {
 
         friendshipRepository.deleteFriend(user1.getId(), user2.getId());
 
-        Collection<User> users = friendshipRepository.getAllFriends(user1.getId());
+        assertThat(friendshipRepository.getUserIdsBefriending(user2.getId()))
+                .doesNotContain(user1.getId());
+    }
+
+    @Test
+    void shouldReturnAllUsersBefriending() {
+        userRepository.createUser(user1);
+        userRepository.createUser(user2);
+        userRepository.createUser(user3);
+
+        friendshipRepository.addFriend(user2.getId(), user1.getId());
+        friendshipRepository.addFriend(user3.getId(), user1.getId());
 
-        assertThat(users)
-                .doesNotContain(userRepository.getUserById(user2.getId()));
+        assertThat(friendshipRepository.getUserIdsBefriending(user1.getId()))
+                .containsExactlyInAnyOrderElementsOf(List.of(user2.getId(), user3.getId()));
     }
 
     @Test
-    void shouldReturnAllFriends() {
+    void shouldPageUsersAfterCursor() {
         userRepository.createUser(user1);
         userRepository.createUser(user2);
         userRepository.createUser(user3);
 
+        assertThat(userRepository.getUsers(null, 2))
+                .extracting(User::getId)
+                .containsExactly(user1.getId(), user2.getId());
+        assertThat(userRepository.getUsers(user2.getId(), 2))
+                .extracting(User::getId)
+                .containsExactly(user3.getId());
+    }
+
+    @Test
+    void shouldRejectFriendshipWithMissingOrDuplicateUser() {
+        userRepository.createUser(user1);
+        userRepository.createUser(user2);
+
         friendshipRepository.addFriend(user1.getId(), user2.getId());
-        friendshipRepository.addFriend(user1.getId(), user3.getId());
 
-        Collection<User> users = friendshipRepository.getAllFriends(user1.getId());
+        assertThrows(DuplicateKeyException.class,
+                () -> friendshipRepository.addFriend(user1.getId(), user2.getId()));
+        assertThrows(NotFoundException.class, () -> friendshipRepository.addFriend(user1.getId(), -1));
+        assertThat(friendshipRepository.deleteFriend(user2.getId(), user1.getId())).isFalse();
+    }
+
+    @Test
+    void shouldThrowNotFoundWhenUpdatingMissingUser() {
+        User missing = User.builder()
+                .id(-1)
+                .email("missing@example.com")
+                .login("Missing")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
 
-        assertThat(users)
-                .containsAll(List.of(
-                        userRepository.getUserById(user2.getId()),
-                        userRepository.getUserById(user3.getId())
-                ));
+        assertThrows(NotFoundException.class, () -> userRepository.updateUser(missing));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.exception.ErrorHandler;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ParallelLookups;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.*;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.TestData.film;
+import static ru.yandex.practicum.filmorate.TestData.user;
+
+@StorageTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import(FriendGraph.class)
+class WriteControllerTest {
+    private static final int UNKNOWN_ID = 999_999;
+
+    private final FilmRepository filmRepository;
+    private final UserRepository userRepository;
+    private final GenreRepository genreRepository;
+    private final LikesRepository likesRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final FriendGraph friendGraph;
+    private final ReferenceDataCache referenceData;
+    private final ChangeTracker tracker;
+    private final ObjectMapper objectMapper;
+
+    private ValidatorFactory validatorFactory;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        EntityVersions versions = new EntityVersions();
+        FilmService filmService = new FilmService(filmRepository, userRepository, genreRepository,
+                likesRepository, mock(LikesWriteBuffer.class), mock(FilmLeaderboard.class),
+                mock(FilmRecommendations.class), mock(FilmSimilarity.class), referenceData,
+                validatorFactory.getValidator(), versions, mock(FilmSearchIndex.class), mock(FilmFilterIndex.class),
+                mock(TrendingFilms.class), tracker, 100);
+        UserService userService = new UserService(userRepository, friendshipRepository, friendGraph,
+                mock(FriendSuggestions.class), likesRepository, mock(FilmLeaderboard.class),
+                mock(TrendingFilms.class), mock(FilmRecommendations.class),
+                mock(FilmSimilarity.class), new ParallelLookups(false), versions, tracker, 100);
+        mvc = MockMvcBuilders.standaloneSetup(
+                        new FilmController(filmService, null, versions, null),
+                        new UserController(userService, filmService, null, versions))
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void shouldInsertValidFilmsAndReportInvalidOnesInBatch() throws Exception {
+        List<Film> batch = List.of(
+                film("First"),
+                film("Unknown MPA").toBuilder().mpa(new Mpa(99, null)).build(),
+                film(""),
+                film("Second"));
+
+        mvc.perform(post("/films/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created[*].name", contains("First", "Second")))
+                .andExpect(jsonPath("$.created[0].id", notNullValue()))
+                .andExpect(jsonPath("$.errors[*].index", contains(1, 2)));
+
+        assertThat(filmRepository.getFilms(null, Integer.MAX_VALUE))
+                .extracting(Film::getName)
+                .containsExactly("First", "Second");
+    }
+
+    @Test
+    void shouldAnswerNotFoundForUnknownLikeReferencesAndBadRequestForDuplicates() throws Exception {
+        int filmId = filmRepository.addFilm(film("Liked")).getId();
+        int userId = userRepository.createUser(user("liker")).getId();
+
+        mvc.perform(put("/films/{id}/like/{userId}", filmId, UNKNOWN_ID))
+                .andExpect(status().isNotFound());
+        mvc.perform(put("/films/{id}/like/{userId}", UNKNOWN_ID, userId))
+                .andExpect(status().isNotFound());
+        mvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+        mvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldAnswerNotFoundForUnknownFriendAndBadRequestForDuplicates() throws Exception {
+        int userId = userRepository.createUser(user("first")).getId();
+        int friendId = userRepository.createUser(user("second")).getId();
+        friendGraph.rebuild();
+
+        mvc.perform(put("/users/{id}/friends/{friendId}", userId, UNKNOWN_ID))
+                .andExpect(status().isNotFound());
+        mvc.perform(put("/users/{id}/friends/{friendId}", userId, friendId))
+                .andExpect(status().isOk());
+        mvc.perform(put("/users/{id}/friends/{friendId}", userId, friendId))
+                .andExpect(status().isBadRequest());
+    }
+}